@@ -0,0 +1,393 @@
+/*
+ * Copyright 2022 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.sibvisions.apps.help;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.ClientInfo;
+import org.restlet.data.Conditions;
+import org.restlet.data.Dimension;
+import org.restlet.data.Encoding;
+import org.restlet.data.Preference;
+import org.restlet.data.Tag;
+import org.restlet.engine.application.EncodeRepresentation;
+import org.restlet.representation.ByteArrayRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.routing.Filter;
+
+import com.sibvisions.util.log.LoggerFactory;
+
+/**
+ * The <code>CompressionFilter</code> compresses responses with gzip or deflate, if the client
+ * accepts the encoding. The compressed data of versioned responses, i.e. responses with a strong tag,
+ * of the cached paths will be cached per version. A cached response won't be serialized or compressed
+ * again.
+ * 
+ * @author Ren Jahn
+ */
+public class CompressionFilter extends Filter
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the maximum size (bytes) of all cached responses. */
+	private static final long MAX_CACHE_SIZE = 32 * 1024 * 1024;
+	
+	/** the supported encodings. */
+	private static final Encoding[] ENCODINGS = new Encoding[] {Encoding.GZIP, Encoding.DEFLATE};
+	
+	/** the compressed responses. */
+	private ResponseCache rcCache = new ResponseCache();
+	
+	/** the paths of the cached responses. */
+	private String[] saCachedPaths = new String[0];
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new instance of <code>CompressionFilter</code>.
+	 * 
+	 * @param pContext the context
+	 * @param pNext the next restlet
+	 */
+	public CompressionFilter(Context pContext, Restlet pNext)
+	{
+		super(pContext, pNext);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Overwritten methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Removes the encoding from the tags of the request conditions because the services don't 
+	 * know the encoding.
+	 * 
+	 * @param pRequest the request
+	 * @param pResponse the response
+	 * @return {@link #CONTINUE}
+	 */
+	@Override
+	protected int beforeHandle(Request pRequest, Response pResponse)
+	{
+		Conditions cond = pRequest.getConditions();
+		
+		removeEncoding(cond.getNoneMatch());
+		removeEncoding(cond.getMatch());
+		
+		return CONTINUE;
+	}
+	
+	/**
+	 * Compresses the response entity, if the client accepts a supported encoding.
+	 * 
+	 * @param pRequest the request
+	 * @param pResponse the response
+	 */
+	@Override
+	protected void afterHandle(Request pRequest, Response pResponse)
+	{
+		Representation rep = pResponse.getEntity();
+		
+		//streamed responses would be buffered by the compressor
+		if (rep == null || !rep.isAvailable() || rep.isTransient() || !rep.getEncodings().isEmpty())
+		{
+			return;
+		}
+		
+		//the response depends on the accepted encodings
+		pResponse.getDimensions().add(Dimension.ENCODING);
+		
+		Encoding encoding = getEncoding(pRequest.getClientInfo());
+		
+		if (encoding == null)
+		{
+			return;
+		}
+		
+		Tag tag = rep.getTag();
+		
+		if (tag != null && !tag.isWeak() && pResponse.getStatus().isSuccess())
+		{
+			//different encodings are different representations
+			Tag tagEncoded = new Tag(tag.getName() + "-" + encoding.getName(), false);
+			
+			if (isCachedPath(pRequest.getResourceRef().getPath()))
+			{
+				//the request URL contains the parameters, the tag contains the version
+				String sKey = pRequest.getResourceRef().toString() + "|" + encoding.getName();
+				
+				byte[] byData = rcCache.get(sKey, tag.getName());
+				
+				if (byData == null)
+				{
+					try
+					{
+						ByteArrayOutputStream bos = new ByteArrayOutputStream();
+						
+						new EncodeRepresentation(encoding, rep).write(bos);
+						
+						byData = bos.toByteArray();
+					}
+					catch (IOException ioe)
+					{
+						LoggerFactory.getInstance(CompressionFilter.class).error(ioe);
+						
+						return;
+					}
+					
+					//replaces the response of the previous version
+					rcCache.put(sKey, tag.getName(), byData);
+				}
+				
+				ByteArrayRepresentation repCompressed = new ByteArrayRepresentation(byData, rep.getMediaType());
+				repCompressed.setCharacterSet(rep.getCharacterSet());
+				repCompressed.getEncodings().add(encoding);
+				repCompressed.setModificationDate(rep.getModificationDate());
+				repCompressed.setTag(tagEncoded);
+				
+				pResponse.setEntity(repCompressed);
+				
+				return;
+			}
+			
+			rep.setTag(tagEncoded);
+		}
+		
+		pResponse.setEntity(new EncodeRepresentation(encoding, rep));
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Sets the paths of the responses which should be cached. A request path which ends with one of
+	 * the paths will be cached, e.g. <code>/api/content</code>. Only versioned responses will be 
+	 * cached, and only the response of the current version per request URL.
+	 * 
+	 * @param pPaths the paths
+	 */
+	public void setCachedPaths(String... pPaths)
+	{
+		saCachedPaths = pPaths != null ? pPaths.clone() : new String[0];
+	}
+	
+	/**
+	 * Gets the paths of the responses which will be cached.
+	 * 
+	 * @return the paths
+	 */
+	public String[] getCachedPaths()
+	{
+		return saCachedPaths.clone();
+	}
+	
+	/**
+	 * Gets whether the responses of the given request path should be cached.
+	 * 
+	 * @param pPath the request path
+	 * @return <code>true</code> if the response should be cached, <code>false</code> otherwise
+	 */
+	private boolean isCachedPath(String pPath)
+	{
+		if (pPath != null)
+		{
+			String[] saPaths = saCachedPaths;
+			
+			for (int i = 0; i < saPaths.length; i++)
+			{
+				if (pPath.endsWith(saPaths[i]))
+				{
+					return true;
+				}
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Gets the supported encoding with the highest quality.
+	 * 
+	 * @param pClientInfo the client information
+	 * @return the encoding or <code>null</code> if the client doesn't accept a supported encoding
+	 */
+	private static Encoding getEncoding(ClientInfo pClientInfo)
+	{
+		Encoding encoding = null;
+		
+		float fQuality = 0;
+		
+		for (Preference<Encoding> pref : pClientInfo.getAcceptedEncodings())
+		{
+			if (pref.getQuality() > fQuality)
+			{
+				for (int i = 0; i < ENCODINGS.length; i++)
+				{
+					if (ENCODINGS[i].equals(pref.getMetadata()))
+					{
+						encoding = ENCODINGS[i];
+						fQuality = pref.getQuality();
+					}
+				}
+			}
+		}
+		
+		return encoding;
+	}
+	
+	/**
+	 * Removes the encoding suffix from the given tags.
+	 * 
+	 * @param pTags the tags
+	 */
+	private static void removeEncoding(List<Tag> pTags)
+	{
+		String sName;
+		String sSuffix;
+		
+		Tag tag;
+		
+		for (int i = 0, cnt = pTags.size(); i < cnt; i++)
+		{
+			tag = pTags.get(i);
+			
+			sName = tag.getName();
+			
+			if (sName != null)
+			{
+				for (int j = 0; j < ENCODINGS.length; j++)
+				{
+					sSuffix = "-" + ENCODINGS[j].getName();
+					
+					if (sName.endsWith(sSuffix))
+					{
+						pTags.set(i, new Tag(sName.substring(0, sName.length() - sSuffix.length()), tag.isWeak()));
+						
+						break;
+					}
+				}
+			}
+		}
+	}
+	
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+
+	/**
+	 * The <code>ResponseCache</code> caches the compressed responses of the current version per 
+	 * request URL and encoding. The least recently used responses will be removed if the size of
+	 * all responses exceeds {@link CompressionFilter#MAX_CACHE_SIZE}.
+	 * 
+	 * @author Ren Jahn
+	 */
+	private static final class ResponseCache
+	{
+		/** the responses, least recently used first. */
+		private LinkedHashMap<String, CachedResponse> lhmResponses = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true);
+		
+		/** the size (bytes) of all responses. */
+		private long lSize;
+		
+		/**
+		 * Gets the cached response.
+		 * 
+		 * @param pKey the request key
+		 * @param pTag the tag of the current version
+		 * @return the compressed data or <code>null</code> if no response of the version is cached
+		 */
+		private synchronized byte[] get(String pKey, String pTag)
+		{
+			CachedResponse resp = lhmResponses.get(pKey);
+			
+			if (resp != null && resp.sTag.equals(pTag))
+			{
+				return resp.byData;
+			}
+			
+			return null;
+		}
+		
+		/**
+		 * Caches a response. The response of another version will be replaced.
+		 * 
+		 * @param pKey the request key
+		 * @param pTag the tag of the version
+		 * @param pData the compressed data
+		 */
+		private synchronized void put(String pKey, String pTag, byte[] pData)
+		{
+			CachedResponse resp = lhmResponses.remove(pKey);
+			
+			if (resp != null)
+			{
+				lSize -= resp.byData.length;
+			}
+			
+			if (pData.length > MAX_CACHE_SIZE)
+			{
+				return;
+			}
+			
+			Iterator<CachedResponse> it = lhmResponses.values().iterator();
+			
+			while (lSize + pData.length > MAX_CACHE_SIZE && it.hasNext())
+			{
+				lSize -= it.next().byData.length;
+				
+				it.remove();
+			}
+			
+			resp = new CachedResponse();
+			resp.sTag = pTag;
+			resp.byData = pData;
+			
+			lhmResponses.put(pKey, resp);
+			
+			lSize += pData.length;
+		}
+		
+	}	// ResponseCache
+	
+	/**
+	 * The <code>CachedResponse</code> is the compressed response of one version.
+	 * 
+	 * @author Ren Jahn
+	 */
+	private static final class CachedResponse
+	{
+		/** the tag of the version. */
+		private String sTag;
+		
+		/** the compressed data. */
+		private byte[] byData;
+		
+	}	// CachedResponse
+	
+}	// CompressionFilter
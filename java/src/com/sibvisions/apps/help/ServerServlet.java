@@ -15,6 +15,7 @@
  */
 package com.sibvisions.apps.help;
 
+import java.io.File;
 import java.io.IOException;
 
 import javax.servlet.ServletException;
@@ -25,6 +26,7 @@ import org.restlet.Application;
 import org.restlet.Context;
 import org.restlet.engine.adapter.HttpServerHelper;
 
+import com.sibvisions.apps.help.services.util.StructureWatcher;
 import com.sibvisions.rad.server.http.HttpContext;
 import com.sibvisions.rad.server.http.rest.JSONUtil;
 import com.sibvisions.util.log.ILogger.LogLevel;
@@ -77,20 +79,11 @@ public class ServerServlet extends org.restlet.ext.servlet.ServerServlet
 	{
 		Application app = super.createApplication(pContext);
 		
-		String sTimeout = getInitParameter("session-timeout");
+		Long lTimeout = getNumberParameter("session-timeout");
 		
-		if (sTimeout != null)
+		if (lTimeout != null)
 		{
-			try
-			{
-				int iTimeout = Integer.parseInt(sTimeout);
-				
-				((ServiceAdapter)app).setSessionTimeout(iTimeout);
-			}
-			catch (Throwable th)
-			{
-				LoggerFactory.getInstance(ServerServlet.class.getPackage().getName()).debug(th);
-			}
+			((ServiceAdapter)app).setSessionTimeout(lTimeout.intValue());
 		}
 		
 		String sPrettyPrint = getInitParameter("json.prettyPrint");
@@ -100,9 +93,80 @@ public class ServerServlet extends org.restlet.ext.servlet.ServerServlet
 			((ServiceAdapter)app).setJsonPrettyPrint(true);
 		}
 		
+		String sCompression = getInitParameter("compression");
+		
+		if (sCompression != null)
+		{
+			((ServiceAdapter)app).setCompressionEnabled(Boolean.parseBoolean(sCompression));
+		}
+		
+		//every parameter on its own -> an invalid value doesn't skip other parameters
+		Long lValue = getNumberParameter("search.fragmentSize");
+		
+		if (lValue != null)
+		{
+			((ServiceAdapter)app).setFragmentSize(lValue.intValue());
+		}
+		
+		lValue = getNumberParameter("search.fragmentCount");
+		
+		if (lValue != null)
+		{
+			((ServiceAdapter)app).setFragmentCount(lValue.intValue());
+		}
+		
+		lValue = getNumberParameter("search.snippetTime");
+		
+		if (lValue != null)
+		{
+			((ServiceAdapter)app).setSnippetTime(lValue.longValue());
+		}
+		
+		String sIndexHome = getInitParameter("search.indexHome");
+		
+		if (sIndexHome != null && sIndexHome.trim().length() > 0)
+		{
+			((ServiceAdapter)app).setIndexHome(new File(sIndexHome.trim()));
+		}
+		
 		return app;
 	}
 	
+	/**
+	 * Gets the value of a numeric init parameter. An invalid value will be logged as error.
+	 * 
+	 * @param pName the parameter name
+	 * @return the value or <code>null</code> if the parameter is not set or invalid
+	 */
+	private Long getNumberParameter(String pName)
+	{
+		String sValue = getInitParameter(pName);
+		
+		if (sValue == null || sValue.trim().length() == 0)
+		{
+			return null;
+		}
+		
+		try
+		{
+			long lValue = Long.parseLong(sValue.trim());
+			
+			if (lValue >= Integer.MIN_VALUE && lValue <= Integer.MAX_VALUE)
+			{
+				return Long.valueOf(lValue);
+			}
+		}
+		catch (NumberFormatException nfe)
+		{
+			//invalid
+		}
+		
+		LoggerFactory.getInstance(ServerServlet.class.getPackage().getName()).error("Invalid value of init parameter ", 
+				                                                                    pName, ": ", sValue);
+		
+		return null;
+	}
+	
 	/**
 	 * {@inheritDoc}
 	 */
@@ -120,5 +184,17 @@ public class ServerServlet extends org.restlet.ext.servlet.ServerServlet
             ctxt.release();
         }
 	}
+	
+	/**
+	 * Closes all structure watchers, because the watch services aren't closed automatically 
+	 * when the application will be undeployed.
+	 */
+	@Override
+	public void destroy()
+	{
+		StructureWatcher.closeAll();
+		
+		super.destroy();
+	}
     
 }	// ServerServlet
@@ -15,6 +15,7 @@
  */
 package com.sibvisions.apps.help;
 
+import java.io.File;
 import java.util.HashSet;
 
 import org.restlet.Application;
@@ -47,6 +48,21 @@ public class ServiceAdapter extends Application
 	/** whether JSON should be pretty printed. */
 	private boolean bJsonPrettyPrint;
 	
+	/** whether responses should be compressed. */
+	private boolean bCompression = true;
+	
+	/** the size of a search snippet fragment or <code>-1</code> to use the default. */
+	private int iFragmentSize = -1;
+	
+	/** the max number of search snippet fragments or <code>-1</code> to use the default. */
+	private int iFragmentCount = -1;
+	
+	/** the max time (in millis) for creating search snippets or <code>-1</code> to use the default. */
+	private long lSnippetTime = -1;
+	
+	/** the directory for all search indexes or <code>null</code> to use the temp directory. */
+	private File fiIndexHome;
+	
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 	// Overwritten methods
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
@@ -66,13 +82,28 @@ public class ServiceAdapter extends Application
 		router.attach("/api/search", SearchService.class);
 		router.attach("/api/translation", TranslationService.class);
 		
+		Restlet rlRoot;
+		
+		if (bCompression)
+		{
+			CompressionFilter cfRouter = new CompressionFilter(ctxt, router);
+			//search responses change with every search text -> not worth caching
+			cfRouter.setCachedPaths("/api/content", "/api/translation");
+			
+			rlRoot = cfRouter;
+		}
+		else
+		{
+			rlRoot = router;
+		}
+		
 		Series<Parameter> serParam = ctxt.getParameters();
 		
 		String sCorsOrigin = getConfig(serParam, "cors.origin", null);
 		
 		if (!StringUtil.isEmpty(sCorsOrigin))
 		{
-            CorsFilter cfRouter = new CorsFilter(ctxt, router);
+            CorsFilter cfRouter = new CorsFilter(ctxt, rlRoot);
             cfRouter.setAllowedOrigins(new HashSet<String>(StringUtil.separateList(sCorsOrigin, ",", true)));
             cfRouter.setAllowedCredentials(true);
             cfRouter.setSkippingResourceForCorsOptions(true);
@@ -81,7 +112,7 @@ public class ServiceAdapter extends Application
 		}
 		else
 		{
-			return router;
+			return rlRoot;
 		}
 	}	
 	
@@ -129,6 +160,113 @@ public class ServiceAdapter extends Application
 		return bJsonPrettyPrint;
 	}
 	
+	/**
+	 * Sets whether responses should be compressed, if the client accepts gzip or deflate encoding.
+	 * 
+	 * @param pCompression <code>true</code> to compress responses, <code>false</code> otherwise
+	 */
+	public void setCompressionEnabled(boolean pCompression)
+	{
+		bCompression = pCompression;
+	}
+	
+	/**
+	 * Gets whether responses will be compressed.
+	 * 
+	 * @return <code>true</code> if responses will be compressed, <code>false</code> otherwise
+	 * @see CompressionFilter
+	 */
+	public boolean isCompressionEnabled()
+	{
+		return bCompression;
+	}
+	
+	/**
+	 * Sets the size of a search snippet fragment.
+	 * 
+	 * @param pSize the number of characters or <code>-1</code> to use the default
+	 * @see com.sibvisions.apps.help.services.util.Searcher#setFragmentSize(int)
+	 */
+	public void setFragmentSize(int pSize)
+	{
+		iFragmentSize = pSize;
+	}
+	
+	/**
+	 * Gets the size of a search snippet fragment.
+	 * 
+	 * @return the number of characters or <code>-1</code> to use the default
+	 */
+	public int getFragmentSize()
+	{
+		return iFragmentSize;
+	}
+	
+	/**
+	 * Sets the max number of search snippet fragments.
+	 * 
+	 * @param pCount the number of fragments, <code>0</code> to create no snippets or <code>-1</code> 
+	 *               to use the default
+	 * @see com.sibvisions.apps.help.services.util.Searcher#setFragmentCount(int)
+	 */
+	public void setFragmentCount(int pCount)
+	{
+		iFragmentCount = pCount;
+	}
+	
+	/**
+	 * Gets the max number of search snippet fragments.
+	 * 
+	 * @return the number of fragments or <code>-1</code> to use the default
+	 */
+	public int getFragmentCount()
+	{
+		return iFragmentCount;
+	}
+	
+	/**
+	 * Sets the max time for creating the snippets of a search.
+	 * 
+	 * @param pMillis the time in millis or <code>-1</code> to use the default
+	 * @see com.sibvisions.apps.help.services.util.Searcher#setSnippetTime(long)
+	 */
+	public void setSnippetTime(long pMillis)
+	{
+		lSnippetTime = pMillis;
+	}
+	
+	/**
+	 * Gets the max time for creating the snippets of a search.
+	 * 
+	 * @return the time in millis or <code>-1</code> to use the default
+	 */
+	public long getSnippetTime()
+	{
+		return lSnippetTime;
+	}
+	
+	/**
+	 * Sets the directory for all search indexes. An index in this directory will be reused after 
+	 * a restart, if the help content wasn't changed.
+	 * 
+	 * @param pPath the directory or <code>null</code> to use the temp directory
+	 * @see com.sibvisions.apps.help.services.util.Searcher#setIndexHome(File)
+	 */
+	public void setIndexHome(File pPath)
+	{
+		fiIndexHome = pPath;
+	}
+	
+	/**
+	 * Gets the directory for all search indexes.
+	 * 
+	 * @return the directory or <code>null</code> to use the temp directory
+	 */
+	public File getIndexHome()
+	{
+		return fiIndexHome;
+	}
+	
 	/**
 	 * Gets a value from the configuration.
 	 * 
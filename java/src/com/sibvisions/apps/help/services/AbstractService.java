@@ -15,32 +15,41 @@
  */
 package com.sibvisions.apps.help.services;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
 import java.net.URL;
+import java.util.Date;
 import java.util.List;
-import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import jvx.rad.util.TranslationMap;
 import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 
+import org.restlet.Application;
+import org.restlet.data.Dimension;
+import org.restlet.data.Form;
+import org.restlet.data.Status;
+import org.restlet.data.Tag;
 import org.restlet.ext.jackson.JacksonRepresentation;
 import org.restlet.ext.servlet.ServletUtils;
 import org.restlet.representation.Representation;
+import org.restlet.resource.ResourceException;
 import org.restlet.resource.ServerResource;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.sibvisions.apps.help.ServiceAdapter;
 import com.sibvisions.apps.help.services.util.Config;
+import com.sibvisions.apps.help.services.util.Searcher;
+import com.sibvisions.apps.help.services.util.TranslationCache;
 import com.sibvisions.rad.server.config.ApplicationZone;
 import com.sibvisions.rad.server.config.Configuration;
 import com.sibvisions.rad.server.config.Configuration.ApplicationListOption;
 import com.sibvisions.rad.server.http.rest.JSONUtil;
 import com.sibvisions.util.FileSearch;
 import com.sibvisions.util.log.LoggerFactory;
-import com.sibvisions.util.type.CommonUtil;
 import com.sibvisions.util.type.StringUtil;
 
 /**
@@ -50,12 +59,67 @@ import com.sibvisions.util.type.StringUtil;
  */
 public abstract class AbstractService extends ServerResource 
 {
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the interval (in millis) after which a cached configuration will be checked again. */
+	private static final long REVALIDATION_INTERVAL = 10000;
+	
+	/** the maximum number of cached configurations. */
+	private static final int MAX_CACHED_CONFIGS = 256;
+	
+	/** the configuration cache. */
+	private static ConcurrentHashMap<String, CachedConfig> chmConfig = new ConcurrentHashMap<String, CachedConfig>();
+	
+	/** the shared JSON writer. */
+	private static ObjectWriter owCompact;
+	
+	/** the shared JSON writer for pretty printing. */
+	private static ObjectWriter owPretty;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	static
+	{
+		//the response stream will be closed by the container
+		JsonFactory factory = new JsonFactory();
+		factory.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+		
+		ObjectMapper mapper = new ObjectMapper(factory);
+		
+		JSONUtil.configureObjectMapper(mapper);
+		
+		//writers are immutable and thread-safe, the serializers are cached in the mapper
+		owCompact = mapper.writer();
+		owPretty = mapper.writerWithDefaultPrettyPrinter();
+	}
+	
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 	// Methods
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 
 	/**
-	 * Gets the JSON representation for the given object.
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doInit() throws ResourceException
+	{
+		super.doInit();
+		
+		//the services check the conditions before the response will be created
+		setConditional(false);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Gets the JSON representation for the given object. The object will be written directly to
+	 * the response stream with a shared writer.
 	 * 
 	 * @param pObject any object
 	 * @return the JSON representation
@@ -63,14 +127,34 @@ public abstract class AbstractService extends ServerResource
 	protected Representation toInternalRepresentation(Object pObject)
 	{
         JacksonRepresentation<Object> rep = new JacksonRepresentation<Object>(pObject);
-        
-        ObjectMapper mapper = rep.getObjectMapper();
-        
-        JSONUtil.configureObjectMapper(mapper);
+        rep.setObjectWriter(isJsonPrettyPrint() ? owPretty : owCompact);
         
         return rep;
 	}
 	
+	/**
+	 * Gets the shared JSON writer without pretty printing, e.g. for writing one object per line.
+	 * 
+	 * @return the writer
+	 */
+	protected ObjectWriter getCompactWriter()
+	{
+		return owCompact;
+	}
+	
+	/**
+	 * Gets whether JSON should be pretty printed.
+	 * 
+	 * @return <code>true</code> if the application is configured for pretty printing, <code>false</code> otherwise
+	 * @see ServiceAdapter#isJsonPrettyPrint()
+	 */
+	protected boolean isJsonPrettyPrint()
+	{
+		Application app = getApplication();
+		
+		return app instanceof ServiceAdapter && ((ServiceAdapter)app).isJsonPrettyPrint();
+	}
+	
 	/**
 	 * Gets the value of parameter: <code>path</code>.
 	 * 
@@ -82,7 +166,8 @@ public abstract class AbstractService extends ServerResource
 	}
 	
 	/**
-	 * Creates a new configuration based on the given request.
+	 * Creates a new configuration based on the given request. The configuration will be cached 
+	 * per root and help path, also if no structure directory was found.
 	 * 
 	 * @return the configuration
 	 * @throws Exception if path detection fails
@@ -108,11 +193,6 @@ public abstract class AbstractService extends ServerResource
 	    	}
 	    }
 	    
-	    if (sRootPath != null)
-	    {
-	    	sRootPath = new File(sRootPath).getCanonicalPath();
-	    }
-		
 	    //ctxt.getContextPath()); --> /onlineHelpServices
 	    //ctxt.getRealPath("/")); --> /Users/rjahn/ROOT/tools/eclipse_workspace_photon/.metadata/.plugins/org.eclipse.wst.server.core/tmp13/wtpwebapps/onlineHelpServices/
 	    
@@ -123,6 +203,62 @@ public abstract class AbstractService extends ServerResource
 	    	sHelpPath = "/";
 	    }
 	    
+	    String sKey = sRootPath + "|" + sHelpPath;
+	    
+	    long lNow = System.currentTimeMillis();
+	    
+	    CachedConfig ccfg = chmConfig.get(sKey);
+	    
+	    if (ccfg != null)
+	    {
+	    	if (ccfg.lValidated + REVALIDATION_INTERVAL > lNow)
+	    	{
+	    		return ccfg.config;
+	    	}
+	    	
+	    	//a found structure is still valid as long as the directory exists, a missing structure
+	    	//will be searched again
+	    	if (ccfg.config.getStructurePath() != null 
+	    		&& ccfg.config.getStructurePath().isDirectory())
+	    	{
+	    		ccfg.lValidated = lNow;
+	    		
+	    		return ccfg.config;
+	    	}
+	    }
+	    
+	    Config cfg = createConfiguration(sRootPath, sHelpPath);
+	    
+	    //the help path is a request parameter -> don't grow without limits
+	    if (chmConfig.size() >= MAX_CACHED_CONFIGS)
+	    {
+	    	chmConfig.clear();
+	    }
+	    
+	    chmConfig.put(sKey, new CachedConfig(cfg, lNow));
+	    
+	    return cfg;
+	}
+	
+	/**
+	 * Creates a new configuration for the given root and help path.
+	 * 
+	 * @param pRootPath the root path of the web application or <code>null</code> if the
+	 *                  application wasn't unpacked
+	 * @param pHelpPath the help path
+	 * @return the configuration
+	 * @throws Exception if path detection fails
+	 */
+	private Config createConfiguration(String pRootPath, String pHelpPath) throws Exception
+	{
+	    String sRootPath = pRootPath;
+	    String sHelpPath = pHelpPath;
+	    
+	    if (sRootPath != null)
+	    {
+	    	sRootPath = new File(sRootPath).getCanonicalPath();
+	    }
+		
 		File fiRoot = null;
 		File fiStructurePath = null;
 
@@ -205,141 +341,263 @@ public abstract class AbstractService extends ServerResource
 	}	
 	
 	/**
-	 * Loads the translation.
+	 * Creates a strong entity tag for the given version information.
 	 * 
-	 * @param pConfig the configuration
-	 * @return the translation
+	 * @param pVersion the version parts, e.g. structure version and translation version
+	 * @return the tag
 	 */
-	protected TranslationMap loadTranslation(Config pConfig)
+	protected Tag createTag(Object... pVersion)
 	{
-		HttpServletRequest req = ServletUtils.getRequest(getRequest());
+		StringBuilder sbTag = new StringBuilder();
 		
-		//don't use getQuery().getFirstValue("language") because language is removed from query
-		String sLanguage = req.getParameter("language");
-
-		if (StringUtil.isEmpty(sLanguage))
+		for (int i = 0; i < pVersion.length; i++)
 		{
-			sLanguage = ServletUtils.getRequest(getRequest()).getLocale().getLanguage(); 
+			if (i > 0)
+			{
+				sbTag.append('-');
+			}
+			
+			sbTag.append(pVersion[i]);
 		}
 		
-		TranslationMap tmap = loadTranslation(pConfig, sLanguage);
-		
-		return tmap;
+		return new Tag(sbTag.toString(), false);
 	}
 	
 	/**
-	 * Loads a translation for a given language.
+	 * Checks whether the client already has the given version. The status of the response will be set
+	 * to <code>304 Not Modified</code>, if the version wasn't changed.
 	 * 
-	 * @param pConfig the configuration
-	 * @param pLanguage the language code e.g. en, de, ru. If the language is
-	 *                  <code>null</code> than the language of the default locale will
-	 *                  be used
-	 * @return the found translation map or <code>null</code> if no translation is available
+	 * @param pTag the current tag
+	 * @param pModified the time of the last modification or <code>0</code> if unknown
+	 * @return <code>true</code> if the client has the current version, <code>false</code> otherwise
 	 */
-	private TranslationMap loadTranslation(Config pConfig, String pLanguage)
+	protected boolean isNotModified(Tag pTag, long pModified)
 	{
-		String sLanguage = pLanguage.toLowerCase();
-				
-		File fiDir = pConfig.getRootPath();
-		
-		String sBaseName = "/translation/helptranslation";
-		String sExt = "xml";
+		Status status = getConditions().getStatus(getMethod(), true, pTag, pModified > 0 ? new Date(pModified) : null);
 		
-		TranslationMap map = new TranslationMap();
-		
-		//load default language file
-		String sResourcePath = sBaseName + "." + sExt;
+		if (Status.REDIRECTION_NOT_MODIFIED.equals(status))
+		{
+			getResponse().setStatus(status);
+			
+			return true;
+		}
 		
-		File fiTrans = new File(fiDir, sResourcePath);
-
-		Properties prop = loadTranslation(fiTrans);
+		return false;
+	}
+	
+	/**
+	 * Sets the version information of the given representation.
+	 * 
+	 * @param pRepresentation the representation
+	 * @param pTag the tag
+	 * @param pModified the time of the last modification or <code>0</code> if unknown
+	 * @return <code>pRepresentation</code>
+	 */
+	protected Representation setVersion(Representation pRepresentation, Tag pTag, long pModified)
+	{
+		pRepresentation.setTag(pTag);
 		
-		if (prop != null)
+		if (pModified > 0)
 		{
-			map.setAsProperties(prop);
-			map.setResourcePath(sResourcePath);
+			pRepresentation.setModificationDate(new Date(pModified));
 		}
 		
-		//try to load a translation file with specific language
-		sResourcePath = sBaseName + "_" + sLanguage + "." + sExt;
+		return pRepresentation;
+	}
+	
+	/**
+	 * Gets the value of a numeric parameter.
+	 * 
+	 * @param pQuery the query parameters
+	 * @param pName the parameter name
+	 * @param pDefault the value if the parameter is missing or invalid
+	 * @param pMin the minimum value
+	 * @param pMax the maximum value
+	 * @return the value
+	 */
+	protected static int getParameter(Form pQuery, String pName, int pDefault, int pMin, int pMax)
+	{
+		String sValue = pQuery.getFirstValue(pName);
 		
-		fiTrans = new File(fiDir, sResourcePath);
+		if (sValue != null)
+		{
+			try
+			{
+				return Math.max(pMin, Math.min(pMax, Integer.parseInt(sValue.trim())));
+			}
+			catch (NumberFormatException nfe)
+			{
+				//use default
+			}
+		}
 		
-		prop = loadTranslation(fiTrans);
+		return pDefault;
+	}
+	
+	/**
+	 * Gets the translation cache for the requested language.
+	 * 
+	 * @param pConfig the configuration
+	 * @return the translation cache
+	 */
+	protected TranslationCache getTranslationCache(Config pConfig)
+	{
+		return TranslationCache.getInstance(pConfig.getRootPath(), getLanguage());
+	}
+	
+	/**
+	 * Loads the translation for clients. The translation is shared and mustn't be used for
+	 * translating.
+	 * 
+	 * @param pConfig the configuration
+	 * @return the translation
+	 * @see #loadTranslator(Config)
+	 */
+	protected TranslationMap loadTranslation(Config pConfig)
+	{
+		return getTranslationCache(pConfig).getTranslation();
+	}
+	
+	/**
+	 * Loads the translation for translating help entries.
+	 * 
+	 * @param pConfig the configuration
+	 * @return the translation
+	 */
+	protected TranslationMap loadTranslator(Config pConfig)
+	{
+		return getTranslationCache(pConfig).getTranslator();
+	}
+	
+	/**
+	 * Gets the requested language. If the request doesn't contain the <code>language</code> parameter,
+	 * the language of the client locale will be used and the response depends on the accepted languages.
+	 * 
+	 * @return the language code e.g. en, de, de_AT
+	 */
+	protected String getLanguage()
+	{
+		HttpServletRequest req = ServletUtils.getRequest(getRequest());
 		
-		if (prop != null)
+		//don't use getQuery().getFirstValue("language") because language is removed from query
+		String sLanguage = req.getParameter("language");
+
+		if (StringUtil.isEmpty(sLanguage))
 		{
-			map.setAsProperties(prop);
-			map.setResourcePath(sResourcePath);
+			sLanguage = req.getLocale().getLanguage(); 
+			
+			//Vary: Accept-Language, otherwise caches would return other languages
+			getResponse().getDimensions().add(Dimension.LANGUAGE);
 		}
-		else 
+		
+		return sLanguage;
+	}
+	
+	/**
+	 * Gets the searcher for the requested application. The searcher will be created and the index
+	 * creation will be started in the background, if necessary. The snippet settings of the 
+	 * application will be used.
+	 * 
+	 * @param pConfig the configuration
+	 * @return the searcher
+	 * @throws Exception if index initialization fails
+	 * @see Searcher#isIndexAvailable()
+	 */
+	protected Searcher getSearcher(Config pConfig) throws Exception
+	{
+		Application app = getApplication();
+		
+		Searcher searcher = Searcher.getInstance(Searcher.createKey(pConfig), pConfig, getIndexHome());
+		
+		if (app instanceof ServiceAdapter)
 		{
-			int iPos = sLanguage.indexOf("_");
+			ServiceAdapter adapter = (ServiceAdapter)app;
 			
-			if (iPos > 0)
+			if (adapter.getFragmentSize() >= 0)
 			{
-				//e.g. de_AT
-				
-				//if no specific language_country file is available -> only use language
-				
-				sLanguage = sLanguage.substring(0, iPos);
-				
-				sResourcePath = sBaseName + "_" + sLanguage + "." + sExt;
-
-				fiTrans = new File(fiDir, sResourcePath);
-				
-				prop = loadTranslation(fiTrans);
-				
-				if (prop != null)
-				{
-					map.setAsProperties(prop);
-					map.setResourcePath(sResourcePath);
-				}
+				searcher.setFragmentSize(adapter.getFragmentSize());
+			}
+			
+			if (adapter.getFragmentCount() >= 0)
+			{
+				searcher.setFragmentCount(adapter.getFragmentCount());
+			}
+			
+			if (adapter.getSnippetTime() >= 0)
+			{
+				searcher.setSnippetTime(adapter.getSnippetTime());
 			}
 		}
 		
-		map.setLanguage(sLanguage);
-		
-		return map;
+		return searcher;
 	}
 	
 	/**
-	 * Loads a translation resource into a translation map.
+	 * Starts the searcher for the given configuration in the background. The response doesn't
+	 * depend on the index, so errors won't be thrown but logged.
 	 * 
-	 * @param pFile the language resource name
-	 * @return the language properties or <code>null</code> if the file was not found
+	 * @param pConfig the configuration
+	 * @see Searcher#startInstance(String, Config, File)
 	 */
-	private Properties loadTranslation(File pFile)
+	protected void startSearcher(Config pConfig)
 	{
-		InputStream isTranslation = null;
-		
 		try
 		{
-			//load the locale specific translation
-			isTranslation = new FileInputStream(pFile);
-			
-			//load the default translation
-			if (isTranslation != null)
-			{
-				Properties properties = new Properties();
-				
-				//don't use the isTranslation because we have problems with some browser plugin versions
-				//(stream closed exceptions)
-				properties.loadFromXML(new BufferedInputStream(isTranslation));
-				
-				return properties;
-			}
+			Searcher.startInstance(Searcher.createKey(pConfig), pConfig, getIndexHome());
 		}
 		catch (Exception e)
 		{
-			LoggerFactory.getInstance(getClass()).debug("Error loading translation", e);
+			LoggerFactory.getInstance(getClass()).error("Starting search index failed", e);
 		}
-		finally
+	}
+	
+	/**
+	 * Gets the directory for all search indexes.
+	 * 
+	 * @return the directory or <code>null</code> to use the temp directory
+	 * @see ServiceAdapter#getIndexHome()
+	 */
+	private File getIndexHome()
+	{
+		Application app = getApplication();
+		
+		if (app instanceof ServiceAdapter)
 		{
-			CommonUtil.close(isTranslation);
+			return ((ServiceAdapter)app).getIndexHome();
 		}
 		
 		return null;
 	}
 	
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+
+	/**
+	 * The <code>CachedConfig</code> is a cached configuration with the time of the last validation.
+	 * 
+	 * @author Ren Jahn
+	 */
+	private static final class CachedConfig
+	{
+		/** the configuration. */
+		private Config config;
+		
+		/** the time of the last validation. */
+		private volatile long lValidated;
+		
+		/**
+		 * Creates a new instance of <code>CachedConfig</code>.
+		 * 
+		 * @param pConfig the configuration
+		 * @param pValidated the time of the validation
+		 */
+		private CachedConfig(Config pConfig, long pValidated)
+		{
+			config = pConfig;
+			lValidated = pValidated;
+		}
+		
+	}	// CachedConfig
+	
 }
@@ -15,11 +15,22 @@
  */
 package com.sibvisions.apps.help.services;
 
+import java.util.HashMap;
+import java.util.List;
+
+import jvx.rad.type.bean.IBean;
+import jvx.rad.util.TranslationMap;
+
+import org.restlet.data.Form;
+import org.restlet.data.Status;
+import org.restlet.data.Tag;
 import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
 
 import com.sibvisions.apps.help.services.util.Config;
-import com.sibvisions.apps.help.services.util.EntryHelper;
+import com.sibvisions.apps.help.services.util.EntryCache;
+import com.sibvisions.apps.help.services.util.EntryChanges;
+import com.sibvisions.apps.help.services.util.TranslationCache;
 
 /**
  * The <code>ContentService</code> is responsible for the help content listing.
@@ -33,9 +44,21 @@ public class ContentService extends AbstractService
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 
 	/**
-	 * Gets a list of all available help entries.
+	 * Gets a list of all available help entries. The entries won't be read if the client
+	 * already has the current version.
+	 * <p>
+	 * With parameter <code>parent</code>, only the subtree of the parent node will be returned,
+	 * without the parent itself. The parameter <code>depth</code> limits the number of levels
+	 * below the parent (default: 1, 0 for all levels). Without parent, the depth starts below
+	 * the root entry (HOME).
+	 * <p>
+	 * With parameter <code>since</code>, only the changes since the given version will be returned:
+	 * <code>{version, full: false, added, changed, removed}</code>. Added and changed entries contain
+	 * their <code>index</code> below the parent. If the changes aren't available anymore, all entries 
+	 * will be returned: <code>{version, full: true, entries}</code>. Use <code>since=0</code> for
+	 * reading all entries with the current version.
 	 * 
-	 * @return the entries list (self joined)
+	 * @return the entries list (self joined) or <code>null</code> if not modified or the parent doesn't exist
 	 * @throws Exception if configuration detection fails
 	 */
 	@Get
@@ -43,10 +66,96 @@ public class ContentService extends AbstractService
 	{
 		Config cfg = createConfiguration();
 		
-		EntryHelper eh = new EntryHelper(cfg);
-		eh.setTranslation(loadTranslation(cfg));
+		TranslationCache tcache = getTranslationCache(cfg);
+		
+		TranslationMap tmap = tcache.getTranslator();
+		
+		EntryCache ecache = EntryCache.getInstance(cfg, tmap.getLanguage());
+		
+		Tag tag = createTag(tmap.getLanguage(), Long.valueOf(ecache.getVersion()), Long.valueOf(tcache.getVersion()));
+		long lModified = Math.max(ecache.lastModified(), tcache.lastModified());
+		
+		Representation rep;
+		
+		if (isNotModified(tag, lModified))
+		{
+			rep = null;
+		}
+		else
+		{
+			Form query = getQuery();
+			
+			String sParent = query.getFirstValue("parent");
+			String sSince = query.getFirstValue("since");
+			
+			if (sSince != null)
+			{
+				long lSince;
+				
+				try
+				{
+					lSince = Long.parseLong(sSince.trim());
+				}
+				catch (NumberFormatException nfe)
+				{
+					//unknown version -> all entries
+					lSince = 0;
+				}
+				
+				rep = setVersion(toInternalRepresentation(createChangeInfo(ecache.getChanges(cfg, tmap, lSince))), tag, lModified);
+			}
+			else if (sParent == null && query.getFirst("depth") == null)
+			{
+				rep = setVersion(toInternalRepresentation(ecache.getEntries(cfg, tmap)), tag, lModified);
+			}
+			else
+			{
+				List<IBean> liEntries = ecache.getEntries(cfg, tmap, sParent, getParameter(query, "depth", 1, 0, Integer.MAX_VALUE));
+				
+				if (liEntries == null)
+				{
+					//the tree was changed or the id is invalid
+					getResponse().setStatus(Status.CLIENT_ERROR_NOT_FOUND, "Unknown parent");
+					
+					rep = null;
+				}
+				else
+				{
+					rep = setVersion(toInternalRepresentation(liEntries), tag, lModified);
+				}
+			}
+		}
+		
+		//the index should be ready before the first search
+		startSearcher(cfg);
+		
+		return rep;
+	}
+	
+	/**
+	 * Creates the response of a change request.
+	 * 
+	 * @param pChanges the changes
+	 * @return the version and all entries or the changed entries
+	 */
+	private static HashMap<String, Object> createChangeInfo(EntryChanges pChanges)
+	{
+		HashMap<String, Object> hmpChanges = new HashMap<String, Object>();
+		hmpChanges.put("version", Long.valueOf(pChanges.getVersion()));
+		hmpChanges.put("full", Boolean.valueOf(pChanges.isFull()));
+		
+		if (pChanges.isFull())
+		{
+			hmpChanges.put("entries", pChanges.getEntries());
+		}
+		else
+		{
+			hmpChanges.put("added", pChanges.getAdded());
+			hmpChanges.put("changed", pChanges.getChanged());
+			hmpChanges.put("removed", pChanges.getRemoved());
+		}
 		
-		return toInternalRepresentation(eh.search());
+		return hmpChanges;
 	}
 	
 }
@@ -15,22 +15,32 @@
  */
 package com.sibvisions.apps.help.services;
 
-import java.io.File;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.util.Hashtable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 
 import jvx.rad.type.bean.IBean;
+import jvx.rad.util.TranslationMap;
 
-import org.restlet.Request;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.restlet.data.CharacterSet;
+import org.restlet.data.Form;
+import org.restlet.data.MediaType;
+import org.restlet.data.Status;
+import org.restlet.data.Tag;
+import org.restlet.representation.OutputRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
 
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.sibvisions.apps.help.services.util.Config;
-import com.sibvisions.apps.help.services.util.EntryHelper;
+import com.sibvisions.apps.help.services.util.IEntryHandler;
+import com.sibvisions.apps.help.services.util.IconManifest;
+import com.sibvisions.apps.help.services.util.SearchResult;
 import com.sibvisions.apps.help.services.util.Searcher;
-import com.sibvisions.util.ArrayUtil;
+import com.sibvisions.apps.help.services.util.TranslationCache;
 
 /**
  * The <code>ContentService</code> is responsible for the help content listing.
@@ -43,17 +53,32 @@ public class SearchService extends AbstractService
 	// Class members
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 
-	/** the global search cache. */
-	private static Hashtable<String, Searcher> htSearcher = new Hashtable<String, Searcher>();
+	/** the delay (in millis) after which a client should search again, if the index is not available. */
+	private static final long RETRY_AFTER = 2000;
+	
+	/** the default number of entries. */
+	private static final int DEFAULT_LIMIT = 100;
+	
+	/** the maximum number of entries per request. */
+	private static final int MAX_LIMIT = 1000;
+	
+	/** the media type for streamed results: one JSON object per line. */
+	private static final MediaType APPLICATION_NDJSON = MediaType.valueOf("application/x-ndjson");
 	
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 	// Methods
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 
 	/**
-	 * Gets a list of all matching entries.
+	 * Gets a list of all matching entries. The result is a page of entries with the number of all
+	 * hits, if one of the parameters <code>offset</code>, <code>limit</code> or <code>after</code> 
+	 * is set. The <code>after</code> parameter is the <code>next</code> position of the previous page,
+	 * it contains the offset of the page. An invalid position or a position of another index version
+	 * will be rejected with <code>400 Bad Request</code>, the client has to search the first page again.
+	 * With parameter <code>stream=true</code>, the page will be streamed as one JSON object per line:
+	 * the page information first, followed by the entries.
 	 * 
-	 * @return the found entries list
+	 * @return the found entries list or <code>null</code> if not modified
 	 * @throws Exception if configuration detection fails
 	 */
 	@Get
@@ -61,73 +86,240 @@ public class SearchService extends AbstractService
 	{
 		Config cfg = createConfiguration();
 		
-		String sKey = getUniqueApplicationKey();
-		
-		Searcher search = htSearcher.get(sKey);
+		Searcher search = getSearcher(cfg);
 		
-		if (search == null)
+		if (!search.isIndexAvailable())
 		{
-			search = new Searcher(sKey);
-			search.setDirectory(cfg.getStructurePath());
+			//don't wait for the index creation
+			getResponse().setStatus(Status.SERVER_ERROR_SERVICE_UNAVAILABLE, "Indexing in progress");
+			getResponse().setRetryAfter(new Date(System.currentTimeMillis() + RETRY_AFTER));
 			
-			search.initialize();
+			HashMap<String, Object> hmpProgress = new HashMap<String, Object>();
+			hmpProgress.put("indexing", Boolean.TRUE);
+			hmpProgress.put("processed", Integer.valueOf(search.getProcessedFileCount()));
+			hmpProgress.put("found", Integer.valueOf(search.getFoundFileCount()));
 			
-			htSearcher.put(sKey, search);
+			return toInternalRepresentation(hmpProgress);
 		}
 		
 		String sSearchTerm = getQuery().getFirstValue("term");
 		
-		File file;
+		TranslationCache tcache = getTranslationCache(cfg);
 		
-		List<IBean> liResults = new ArrayUtil<IBean>();
+		TranslationMap tmap = tcache.getTranslator();
 		
-		EntryHelper eh = new EntryHelper(cfg);
-		eh.setTranslation(loadTranslation(cfg));
+		//the icons of the entries aren't part of the index
+		IconManifest icons = IconManifest.getInstance(cfg);
 		
-		for (String fileName : search.searchIndex(sSearchTerm, 100))
+		//the search term is part of the request URL -> the index, translation and icons define the version
+		Tag tag = createTag(tmap.getLanguage(), Long.valueOf(search.getIndexVersion()), Long.valueOf(tcache.getVersion()), 
+				            Long.valueOf(icons.getVersion()));
+		long lModified = Math.max(Math.max(search.getIndexModified(), tcache.lastModified()), icons.lastModified());
+		
+		if (isNotModified(tag, lModified))
 		{
-			file = new File(fileName);
-			
-			if (file.exists())
+			return null;
+		}
+		
+		Form query = getQuery();
+		
+		int iOffset = getParameter(query, "offset", 0, 0, Integer.MAX_VALUE);
+		int iLimit = getParameter(query, "limit", DEFAULT_LIMIT, 1, MAX_LIMIT);
+		
+		String sAfter = query.getFirstValue("after");
+		
+		if (sAfter != null)
+		{
+			try
 			{
-				liResults.add(eh.createFileEntry(file));
+				search.checkPosition(sAfter);
 			}
+			catch (IllegalArgumentException iae)
+			{
+				getResponse().setStatus(Status.CLIENT_ERROR_BAD_REQUEST, iae.getMessage());
+				
+				return null;
+			}
+		}
+		
+		if (Boolean.parseBoolean(query.getFirstValue("stream")))
+		{
+			return setVersion(new EntryStreamRepresentation(getCompactWriter(), search, tmap, sSearchTerm, iOffset, iLimit, sAfter), 
+					          tag, lModified);
+		}
+		
+		SearchResult result;
+		
+		try
+		{
+			//the entries are read from the index -> no file access
+			result = search.searchEntries(sSearchTerm, iOffset, iLimit, sAfter);
+		}
+		catch (IllegalArgumentException iae)
+		{
+			//index updated after the check
+			getResponse().setStatus(Status.CLIENT_ERROR_BAD_REQUEST, iae.getMessage());
+			
+			return null;
 		}
 		
-		return toInternalRepresentation(liResults);
+		List<IBean> liResults = result.getEntries();
+		
+		for (IBean bean : liResults)
+		{
+			bean.put("name", tmap.translate((String)bean.get("name")));
+		}
+		
+		if (query.getFirst("offset") == null
+			&& query.getFirst("limit") == null
+			&& sAfter == null)
+		{
+			return setVersion(toInternalRepresentation(liResults), tag, lModified);
+		}
+		
+		HashMap<String, Object> hmpResult = createPageInfo(result);
+		hmpResult.put("entries", liResults);
+		
+		return setVersion(toInternalRepresentation(hmpResult), tag, lModified);
 	}
 	
+	/**
+	 * Creates the page information of a search result.
+	 * 
+	 * @param pResult the search result
+	 * @return the page information
+	 */
+	private static HashMap<String, Object> createPageInfo(SearchResult pResult)
+	{
+		HashMap<String, Object> hmpPage = new HashMap<String, Object>();
+		hmpPage.put("totalHits", Integer.valueOf(pResult.getTotalHits()));
+		hmpPage.put("offset", Integer.valueOf(pResult.getOffset()));
+		hmpPage.put("next", pResult.getNext());
+		
+		return hmpPage;
+	}
 	
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+
 	/**
-	 * Returns a String which is unique for the application.
+	 * The <code>EntryStreamRepresentation</code> searches while the response will be written and 
+	 * writes every found entry as soon as it was read from the index. Every line is a JSON object. 
+	 * The first line contains the page information.
 	 * 
-	 * @return a String which is unique for the application.
-	 * @throws MalformedURLException if the URL is malformed.
+	 * @author Ren Jahn
 	 */
-	protected String getUniqueApplicationKey() throws MalformedURLException
+	private static final class EntryStreamRepresentation extends OutputRepresentation 
+	                                                     implements IEntryHandler
 	{
-		URL urlDocBase = Request.getCurrent().getResourceRef().toUrl();
+		/** the JSON writer. */
+		private ObjectWriter writer;
+		
+		/** the searcher. */
+		private Searcher searcher;
 		
-		String sServer = urlDocBase.getAuthority();
+		/** the translation. */
+		private TranslationMap translation;
 		
-		if (urlDocBase.getPath() != null)
+		/** the search term. */
+		private String sSearchTerm;
+		
+		/** the position of the first entry. */
+		private int iOffset;
+		
+		/** the max number of entries. */
+		private int iLimit;
+		
+		/** the position of the page. */
+		private String sAfter;
+		
+		/** the output stream while writing. */
+		private OutputStream osOutput;
+		
+		/**
+		 * Creates a new instance of <code>EntryStreamRepresentation</code>.
+		 * 
+		 * @param pWriter the JSON writer
+		 * @param pSearcher the searcher
+		 * @param pTranslation the translation
+		 * @param pSearchTerm the search term
+		 * @param pOffset the position of the first entry
+		 * @param pLimit the max number of entries
+		 * @param pAfter the position of the page or <code>null</code>
+		 */
+		private EntryStreamRepresentation(ObjectWriter pWriter, Searcher pSearcher, TranslationMap pTranslation, 
+				                          String pSearchTerm, int pOffset, int pLimit, String pAfter)
 		{
-			int iPos = urlDocBase.getPath().lastIndexOf('/');
+			super(APPLICATION_NDJSON);
+			
+			setCharacterSet(CharacterSet.UTF_8);
+			//the search runs while writing -> the content can be written only once
+			setTransient(true);
 			
-			sServer += urlDocBase.getPath().substring(0, iPos);
+			writer = pWriter;
+			searcher = pSearcher;
+			translation = pTranslation;
+			sSearchTerm = pSearchTerm;
+			iOffset = pOffset;
+			iLimit = pLimit;
+			sAfter = pAfter;
 		}
 		
-		sServer = sServer.replaceAll("/", "_").replaceAll(":", "_");
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void write(OutputStream pOutput) throws IOException
+		{
+			osOutput = pOutput;
+			
+			try
+			{
+				searcher.searchEntries(sSearchTerm, iOffset, iLimit, sAfter, this);
+			}
+			catch (ParseException pe)
+			{
+				throw new IOException(pe);
+			}
+			finally
+			{
+				osOutput = null;
+			}
+		}
 		
-		String sPath = getParameterPath();
+		/**
+		 * {@inheritDoc}
+		 */
+		public void start(SearchResult pResult) throws IOException
+		{
+			writeLine(createPageInfo(pResult));
+		}
 		
-		// in case of multi-path help -> use path for search
-		if (sPath != null)
+		/**
+		 * {@inheritDoc}
+		 */
+		public void entry(IBean pEntry) throws IOException
 		{
-			sServer += sPath.replace("/", "_");
+			pEntry.put("name", translation.translate((String)pEntry.get("name")));
+			
+			writeLine(pEntry);
 		}
 		
-		return sServer;
-	}
+		/**
+		 * Writes the given object as one line and sends the line to the client.
+		 * 
+		 * @param pObject the object
+		 * @throws IOException if writing fails
+		 */
+		private void writeLine(Object pObject) throws IOException
+		{
+			writer.writeValue(osOutput, pObject);
+			
+			osOutput.write('\n');
+			osOutput.flush();
+		}
+		
+	}	// EntryStreamRepresentation
 	
 }
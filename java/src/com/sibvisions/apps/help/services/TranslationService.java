@@ -17,10 +17,12 @@ package com.sibvisions.apps.help.services;
 
 import jvx.rad.util.TranslationMap;
 
+import org.restlet.data.Tag;
 import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
 
 import com.sibvisions.apps.help.services.util.Config;
+import com.sibvisions.apps.help.services.util.TranslationCache;
 
 /**
  * The <code>ContentService</code> is responsible for the help content listing.
@@ -34,9 +36,9 @@ public class TranslationService extends AbstractService
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 
 	/**
-	 * Gets a list of all available help entries.
+	 * Gets the translation for the requested language.
 	 * 
-	 * @return the entries list (self joined)
+	 * @return the translation or <code>null</code> if not modified
 	 * @throws Exception if configuration detection fails
 	 */
 	@Get
@@ -44,9 +46,19 @@ public class TranslationService extends AbstractService
 	{
 		Config cfg = createConfiguration();
 
-		TranslationMap tmap = loadTranslation(cfg);
+		TranslationCache tcache = getTranslationCache(cfg);
+
+		TranslationMap tmap = tcache.getTranslation();
+		
+		Tag tag = createTag(tmap.getLanguage(), Long.valueOf(tcache.getVersion()));
+		long lModified = tcache.lastModified();
+		
+		if (isNotModified(tag, lModified))
+		{
+			return null;
+		}
 		
-		return toInternalRepresentation(tmap);
+		return setVersion(toInternalRepresentation(tmap), tag, lModified);
 	}
 	
 }
@@ -0,0 +1,571 @@
+/*
+ * Copyright 2022 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.sibvisions.apps.help.services.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jvx.rad.type.bean.Bean;
+import jvx.rad.type.bean.IBean;
+import jvx.rad.util.TranslationMap;
+
+/**
+ * The <code>EntryCache</code> caches the help entries of a structure directory for a specific
+ * language. The entries will be re-created if the structure directory or the translation changes.
+ * The cache contains an index of the child entries of all nodes, for reading subtrees, and a
+ * history of the last changes, for reading the changes since a previous version.
+ * 
+ * @author Ren Jahn
+ */
+public final class EntryCache
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the maximum number of changes in the history. */
+	private static final int MAX_HISTORY = 32;
+
+	/** all cached entries. */
+	private static ConcurrentHashMap<String, EntryCache> chmCache = new ConcurrentHashMap<String, EntryCache>();
+
+	/** the structure watcher. */
+	private StructureWatcher watcher;
+
+	/** the icons of the entries. */
+	private IconManifest icons;
+
+	/** the cached entries. */
+	private List<IBean> liEntries;
+
+	/** the child entries of all nodes, by id of the parent node. */
+	private HashMap<String, List<IBean>> hmpChildren;
+
+	/** the structure version of the cached entries. */
+	private long lVersion;
+
+	/** the icon version of the cached entries. */
+	private long lIconVersion;
+
+	/** the translation of the cached entries. */
+	private TranslationMap tmapTranslation;
+
+	/** the version of the cached entries, changes only if the entries were changed. */
+	private long lRevision;
+
+	/** the last changes, the oldest first. */
+	private ArrayList<Change> liHistory = new ArrayList<Change>();
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new instance of <code>EntryCache</code>.
+	 * 
+	 * @param pConfig the configuration
+	 */
+	private EntryCache(Config pConfig)
+	{
+		watcher = StructureWatcher.getInstance(pConfig.getStructurePath());
+		icons = IconManifest.getInstance(pConfig);
+
+		//don't start with 0 because the versions of a previous start are unknown
+		lRevision = System.currentTimeMillis();
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Gets the cache for the given configuration and language. The cache will be created, if necessary.
+	 * 
+	 * @param pConfig the configuration
+	 * @param pLanguage the language
+	 * @return the cache
+	 */
+	public static EntryCache getInstance(Config pConfig, String pLanguage)
+	{
+		//the help path is part of the key because icons and URLs depend on it
+		String sKey = pConfig.getStructurePath().getPath() + "|" + pConfig.getHelpPath() + "|" + pLanguage;
+
+		EntryCache cache = chmCache.get(sKey);
+
+		if (cache == null)
+		{
+			synchronized (chmCache)
+			{
+				cache = chmCache.get(sKey);
+
+				if (cache == null)
+				{
+					cache = new EntryCache(pConfig);
+
+					chmCache.put(sKey, cache);
+				}
+			}
+		}
+
+		return cache;
+	}
+
+	/**
+	 * Gets the version of the structure directory and the icons. The version is cheap to compute 
+	 * because the entries won't be read. Both versions only grow, so the sum changes whenever the
+	 * structure or the icons were changed.
+	 * 
+	 * @return the version
+	 * @see StructureWatcher#getVersion()
+	 * @see IconManifest#getVersion()
+	 */
+	public long getVersion()
+	{
+		return watcher.getVersion() + icons.getVersion();
+	}
+
+	/**
+	 * Gets the time of the last structure or icon change.
+	 * 
+	 * @return the time of the last change
+	 * @see StructureWatcher#lastModified()
+	 * @see IconManifest#lastModified()
+	 */
+	public long lastModified()
+	{
+		return Math.max(watcher.lastModified(), icons.lastModified());
+	}
+
+	/**
+	 * Gets all help entries. The cached entries will be used if neither the structure nor the
+	 * translation was changed.
+	 * 
+	 * @param pConfig the configuration
+	 * @param pTranslation the translation (shared)
+	 * @return all entries (unmodifiable)
+	 * @see EntryHelper#search()
+	 */
+	public synchronized List<IBean> getEntries(Config pConfig, TranslationMap pTranslation)
+	{
+		validate(pConfig, pTranslation);
+
+		return liEntries;
+	}
+
+	/**
+	 * Gets the help entries of a subtree, in the same order as {@link #getEntries(Config, TranslationMap)}.
+	 * The entries will be read from the node index without walking the whole tree.
+	 * 
+	 * @param pConfig the configuration
+	 * @param pTranslation the translation (shared)
+	 * @param pParent the id of the parent node, without the parent itself, or <code>null</code> for the 
+	 *                root entry (HOME) and its subtree
+	 * @param pDepth the number of levels below the parent node or <code>0</code> for all levels
+	 * @return the entries (unmodifiable) or <code>null</code> if the parent node doesn't exist
+	 */
+	public synchronized List<IBean> getEntries(Config pConfig, TranslationMap pTranslation, String pParent, int pDepth)
+	{
+		validate(pConfig, pTranslation);
+
+		List<IBean> liSubtree = new ArrayList<IBean>();
+
+		if (pParent == null)
+		{
+			//the root entry is one level above its children
+			addEntries(liSubtree, null, pDepth > 0 ? pDepth + 1 : 0);
+		}
+		else if (hmpChildren.containsKey(pParent))
+		{
+			addEntries(liSubtree, pParent, pDepth);
+		}
+		else
+		{
+			return null;
+		}
+
+		return Collections.unmodifiableList(liSubtree);
+	}
+
+	/**
+	 * Gets the version of the entries. The version changes only if an entry was added, changed 
+	 * or removed.
+	 * 
+	 * @param pConfig the configuration
+	 * @param pTranslation the translation (shared)
+	 * @return the version
+	 * @see #getChanges(Config, TranslationMap, long)
+	 */
+	public synchronized long getRevision(Config pConfig, TranslationMap pTranslation)
+	{
+		validate(pConfig, pTranslation);
+
+		return lRevision;
+	}
+
+	/**
+	 * Gets the changes of the entries since the given version. All entries will be returned if the
+	 * changes since the version aren't available anymore, e.g. after a restart or if the history
+	 * was trimmed. Entries are identified by <code>id</code> (folders) or by <code>url</code> (files).
+	 * 
+	 * @param pConfig the configuration
+	 * @param pTranslation the translation (shared)
+	 * @param pVersion the version of the client
+	 * @return the changes
+	 */
+	public synchronized EntryChanges getChanges(Config pConfig, TranslationMap pTranslation, long pVersion)
+	{
+		validate(pConfig, pTranslation);
+
+		if (pVersion == lRevision)
+		{
+			List<IBean> liEmpty = Collections.emptyList();
+
+			return new EntryChanges(lRevision, liEmpty, liEmpty, liEmpty);
+		}
+
+		int iStart = -1;
+
+		for (int i = 0, cnt = liHistory.size(); i < cnt && iStart < 0; i++)
+		{
+			if (liHistory.get(i).lFrom == pVersion)
+			{
+				iStart = i;
+			}
+		}
+
+		if (iStart < 0)
+		{
+			return new EntryChanges(lRevision, liEntries);
+		}
+
+		//combines all changes since the version
+		LinkedHashMap<String, IBean> lhmAdded = new LinkedHashMap<String, IBean>();
+		LinkedHashMap<String, IBean> lhmChanged = new LinkedHashMap<String, IBean>();
+		LinkedHashMap<String, IBean> lhmRemoved = new LinkedHashMap<String, IBean>();
+
+		for (int i = iStart, cnt = liHistory.size(); i < cnt; i++)
+		{
+			Change change = liHistory.get(i);
+
+			for (Map.Entry<String, IBean> entry : change.lhmAdded.entrySet())
+			{
+				if (lhmRemoved.remove(entry.getKey()) != null)
+				{
+					lhmChanged.put(entry.getKey(), entry.getValue());
+				}
+				else
+				{
+					lhmAdded.put(entry.getKey(), entry.getValue());
+				}
+			}
+
+			for (Map.Entry<String, IBean> entry : change.lhmChanged.entrySet())
+			{
+				if (lhmAdded.containsKey(entry.getKey()))
+				{
+					lhmAdded.put(entry.getKey(), entry.getValue());
+				}
+				else
+				{
+					lhmChanged.put(entry.getKey(), entry.getValue());
+				}
+			}
+
+			for (Map.Entry<String, IBean> entry : change.lhmRemoved.entrySet())
+			{
+				if (lhmAdded.remove(entry.getKey()) == null)
+				{
+					lhmChanged.remove(entry.getKey());
+					lhmRemoved.put(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+
+		return new EntryChanges(lRevision, 
+				                addIndex(lhmAdded.values()), 
+				                addIndex(lhmChanged.values()), 
+				                Collections.unmodifiableList(new ArrayList<IBean>(lhmRemoved.values())));
+	}
+
+	/**
+	 * Re-creates the entries and the node index if the structure, the icons or the translation was changed.
+	 * 
+	 * @param pConfig the configuration
+	 * @param pTranslation the translation (shared)
+	 */
+	private void validate(Config pConfig, TranslationMap pTranslation)
+	{
+		long lCurrentVersion = watcher.getVersion();
+		long lCurrentIconVersion = icons.getVersion();
+
+		//the translation is a shared instance and will be replaced if it was changed
+		if (liEntries == null
+			|| lVersion != lCurrentVersion
+			|| lIconVersion != lCurrentIconVersion
+			|| tmapTranslation != pTranslation)
+		{
+			EntryHelper eh = new EntryHelper(pConfig);
+			eh.setTranslation(pTranslation);
+
+			List<IBean> liSearch = eh.search();
+
+			HashMap<String, List<IBean>> hmpNodes = new HashMap<String, List<IBean>>();
+
+			IBean bean;
+			Object oID;
+			Object oParentID;
+
+			String sParentID;
+
+			List<IBean> liChildren;
+
+			for (int i = 0, cnt = liSearch.size(); i < cnt; i++)
+			{
+				bean = liSearch.get(i);
+
+				//only nodes have an id, an empty node can be read as well
+				oID = bean.get("id");
+
+				if (oID != null && !hmpNodes.containsKey(String.valueOf(oID)))
+				{
+					hmpNodes.put(String.valueOf(oID), new ArrayList<IBean>());
+				}
+
+				oParentID = bean.get("parentID");
+
+				sParentID = oParentID == null ? null : String.valueOf(oParentID);
+
+				liChildren = hmpNodes.get(sParentID);
+
+				if (liChildren == null)
+				{
+					liChildren = new ArrayList<IBean>();
+
+					hmpNodes.put(sParentID, liChildren);
+				}
+
+				liChildren.add(bean);
+			}
+
+			if (liEntries != null)
+			{
+				Change change = new Change(liEntries, liSearch);
+
+				if (!change.isEmpty())
+				{
+					change.lFrom = lRevision;
+
+					lRevision++;
+
+					liHistory.add(change);
+
+					if (liHistory.size() > MAX_HISTORY)
+					{
+						liHistory.remove(0);
+					}
+				}
+			}
+
+			liEntries = Collections.unmodifiableList(liSearch);
+			hmpChildren = hmpNodes;
+			lVersion = lCurrentVersion;
+			lIconVersion = lCurrentIconVersion;
+			tmapTranslation = pTranslation;
+		}
+	}
+
+	/**
+	 * Creates copies of the given entries with the <code>index</code> of every entry below its parent.
+	 * 
+	 * @param pEntries the entries of the current version
+	 * @return the copied entries (unmodifiable)
+	 */
+	private List<IBean> addIndex(Collection<IBean> pEntries)
+	{
+		List<IBean> liCopy = new ArrayList<IBean>(pEntries.size());
+
+		Object oParentID;
+
+		List<IBean> liChildren;
+
+		IBean bean;
+
+		for (IBean entry : pEntries)
+		{
+			oParentID = entry.get("parentID");
+
+			liChildren = hmpChildren.get(oParentID == null ? null : String.valueOf(oParentID));
+
+			//a new bean because the cached beans share the bean type
+			bean = new Bean();
+
+			for (String sProperty : entry.getBeanType().getPropertyNames())
+			{
+				bean.put(sProperty, entry.get(sProperty));
+			}
+
+			for (int i = 0, cnt = liChildren == null ? 0 : liChildren.size(); i < cnt; i++)
+			{
+				if (liChildren.get(i) == entry)
+				{
+					bean.put("index", Integer.valueOf(i));
+
+					break;
+				}
+			}
+
+			liCopy.add(bean);
+		}
+
+		return Collections.unmodifiableList(liCopy);
+	}
+
+	/**
+	 * Adds the child entries of a node and their subtrees (depth-first).
+	 * 
+	 * @param pEntries the entries
+	 * @param pParent the id of the parent node or <code>null</code> for the root entries
+	 * @param pDepth the number of levels, <code>0</code> or less for all levels
+	 */
+	private void addEntries(List<IBean> pEntries, String pParent, int pDepth)
+	{
+		List<IBean> liChildren = hmpChildren.get(pParent);
+
+		if (liChildren != null)
+		{
+			Object oID;
+
+			for (int i = 0, cnt = liChildren.size(); i < cnt; i++)
+			{
+				pEntries.add(liChildren.get(i));
+
+				oID = liChildren.get(i).get("id");
+
+				if (oID != null && pDepth != 1)
+				{
+					addEntries(pEntries, String.valueOf(oID), pDepth - 1);
+				}
+			}
+		}
+	}
+
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+
+	/**
+	 * The <code>Change</code> contains the added, changed and removed entries of one version.
+	 * 
+	 * @author Ren Jahn
+	 */
+	private static final class Change
+	{
+		/** the version before the change. */
+		private long lFrom;
+
+		/** the added entries. */
+		private LinkedHashMap<String, IBean> lhmAdded = new LinkedHashMap<String, IBean>();
+
+		/** the changed entries. */
+		private LinkedHashMap<String, IBean> lhmChanged = new LinkedHashMap<String, IBean>();
+
+		/** the removed entries. */
+		private LinkedHashMap<String, IBean> lhmRemoved = new LinkedHashMap<String, IBean>();
+
+		/**
+		 * Creates a new instance of <code>Change</code>.
+		 * 
+		 * @param pOld the entries before the change
+		 * @param pNew the entries after the change
+		 */
+		private Change(List<IBean> pOld, List<IBean> pNew)
+		{
+			HashMap<String, IBean> hmpOld = new HashMap<String, IBean>();
+
+			for (int i = 0, cnt = pOld.size(); i < cnt; i++)
+			{
+				hmpOld.put(getKey(pOld.get(i)), pOld.get(i));
+			}
+
+			String sKey;
+
+			IBean bnOld;
+
+			for (int i = 0, cnt = pNew.size(); i < cnt; i++)
+			{
+				sKey = getKey(pNew.get(i));
+
+				bnOld = hmpOld.remove(sKey);
+
+				if (bnOld == null)
+				{
+					lhmAdded.put(sKey, pNew.get(i));
+				}
+				else if (!bnOld.equals(pNew.get(i)))
+				{
+					lhmChanged.put(sKey, pNew.get(i));
+				}
+			}
+
+			//keep the order of the old entries
+			for (int i = 0, cnt = pOld.size(); i < cnt; i++)
+			{
+				sKey = getKey(pOld.get(i));
+
+				if (hmpOld.containsKey(sKey))
+				{
+					lhmRemoved.put(sKey, pOld.get(i));
+				}
+			}
+		}
+
+		/**
+		 * Gets the key of an entry. Folders are identified by id, files by url.
+		 * 
+		 * @param pEntry the entry
+		 * @return the key
+		 */
+		private static String getKey(IBean pEntry)
+		{
+			Object oID = pEntry.get("id");
+
+			if (oID != null)
+			{
+				return "id:" + oID;
+			}
+
+			return "url:" + pEntry.get("url");
+		}
+
+		/**
+		 * Gets whether no entry was changed.
+		 * 
+		 * @return <code>true</code> if no entry was added, changed or removed
+		 */
+		private boolean isEmpty()
+		{
+			return lhmAdded.isEmpty() && lhmChanged.isEmpty() && lhmRemoved.isEmpty();
+		}
+
+	}	// Change
+
+}	// EntryCache
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2022 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.sibvisions.apps.help.services.util;
+
+import java.util.List;
+
+import jvx.rad.type.bean.IBean;
+
+/**
+ * The <code>EntryChanges</code> are the changes of the help entries since a previous version. If 
+ * the changes aren't available, the changes contain all entries.
+ * 
+ * @author Ren Jahn
+ * @see EntryCache#getChanges(Config, jvx.rad.util.TranslationMap, long)
+ */
+public final class EntryChanges
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the current version. */
+	private long lVersion;
+
+	/** all entries or <code>null</code> if only the changes are available. */
+	private List<IBean> liEntries;
+
+	/** the added entries. */
+	private List<IBean> liAdded;
+
+	/** the changed entries. */
+	private List<IBean> liChanged;
+
+	/** the removed entries. */
+	private List<IBean> liRemoved;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new instance of <code>EntryChanges</code> with all entries.
+	 * 
+	 * @param pVersion the current version
+	 * @param pEntries all entries
+	 */
+	EntryChanges(long pVersion, List<IBean> pEntries)
+	{
+		lVersion = pVersion;
+		liEntries = pEntries;
+	}
+
+	/**
+	 * Creates a new instance of <code>EntryChanges</code> with the changed entries.
+	 * 
+	 * @param pVersion the current version
+	 * @param pAdded the added entries
+	 * @param pChanged the changed entries
+	 * @param pRemoved the removed entries
+	 */
+	EntryChanges(long pVersion, List<IBean> pAdded, List<IBean> pChanged, List<IBean> pRemoved)
+	{
+		lVersion = pVersion;
+		liAdded = pAdded;
+		liChanged = pChanged;
+		liRemoved = pRemoved;
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Gets the current version of the entries. The version can be used for reading the next changes.
+	 * 
+	 * @return the version
+	 */
+	public long getVersion()
+	{
+		return lVersion;
+	}
+
+	/**
+	 * Gets whether the changes contain all entries, because the changes since the requested version
+	 * aren't available. The client has to reload the whole tree.
+	 * 
+	 * @return <code>true</code> if all entries are available, <code>false</code> if only the changes are available
+	 */
+	public boolean isFull()
+	{
+		return liEntries != null;
+	}
+
+	/**
+	 * Gets all entries.
+	 * 
+	 * @return the entries or <code>null</code> if only the changes are available
+	 * @see #isFull()
+	 */
+	public List<IBean> getEntries()
+	{
+		return liEntries;
+	}
+
+	/**
+	 * Gets the added entries. Every entry contains the <code>index</code> below its parent.
+	 * 
+	 * @return the entries or <code>null</code> if all entries are available
+	 */
+	public List<IBean> getAdded()
+	{
+		return liAdded;
+	}
+
+	/**
+	 * Gets the changed entries. Every entry contains the <code>index</code> below its parent.
+	 * 
+	 * @return the entries or <code>null</code> if all entries are available
+	 */
+	public List<IBean> getChanged()
+	{
+		return liChanged;
+	}
+
+	/**
+	 * Gets the removed entries, in the version before the removal.
+	 * 
+	 * @return the entries or <code>null</code> if all entries are available
+	 */
+	public List<IBean> getRemoved()
+	{
+		return liRemoved;
+	}
+
+}	// EntryChanges
@@ -19,8 +19,9 @@ import java.io.File;
 import java.io.FilenameFilter;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import jvx.rad.type.bean.Bean;
 import jvx.rad.type.bean.IBean;
@@ -46,6 +47,38 @@ public class EntryHelper
 	/** the translation. */
 	private TranslationMap trans;
 	
+	/** the mask for IDs (53 bits). */
+	private static final long ID_MASK = 0x1fffffffffffffL;
+	
+	/** the escape sequences for all bytes which are not allowed in an URL part. */
+	private static final char[][] URL_ESCAPE = new char[256][];
+	
+	/** the available icons. */
+	private IconManifest icons;
+	
+	/** the encoded URL paths of directories. */
+	private ConcurrentHashMap<String, String> chmEncodedPath = new ConcurrentHashMap<String, String>();
+	
+	/** the length of the absolute root path. */
+	private int iRootPathLength;
+	
+	static
+	{
+		String sHex = "0123456789abcdef";
+		String sAllowed = "$-_.!'(),/";
+		
+		for (int i = 0; i < URL_ESCAPE.length; i++)
+		{
+			if (!((i >= 'a' && i <= 'z')
+				  || (i >= 'A' && i <= 'Z')
+				  || (i >= '0' && i <= '9')
+				  || sAllowed.indexOf(i) >= 0))
+			{
+				URL_ESCAPE[i] = new char[] {'%', sHex.charAt(i >> 4), sHex.charAt(i & 0xf)};
+			}
+		}
+	}
+	
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 	// Initialization
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
@@ -58,6 +91,11 @@ public class EntryHelper
 	public EntryHelper(Config pConfig)
 	{
 		config = pConfig;
+		
+		iRootPathLength = pConfig.getRootPath().getAbsolutePath().length();
+		
+		//the icon directory will be read once for all entries
+		icons = IconManifest.getInstance(pConfig);
 	}
 	
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
@@ -85,9 +123,11 @@ public class EntryHelper
 	}
 	
 	/**
-	 * Search all help entries/files in the structure path of current configuration.
+	 * Search all help entries/files in the structure path of current configuration. The folders
+	 * get stable IDs, derived from their relative path in the structure.
 	 * 
 	 * @return all found entries
+	 * @see #createID(String)
 	 */
 	public List<IBean> search()
 	{
@@ -95,11 +135,10 @@ public class EntryHelper
 		
 		File fiStructure = config.getStructurePath();
 		
-		HashMap<String, Integer> hmpIDCache = new HashMap<String, Integer>();
-		hmpIDCache.put(fiStructure.getAbsolutePath(), Integer.valueOf(-1));
+		Integer iHomeID = Integer.valueOf(-1);
 		
 		IBean bnHome = new Bean();
-		bnHome.put("id", Integer.valueOf(-1));
+		bnHome.put("id", iHomeID);
 		bnHome.put("name", "HOME");
 		
 		File fiHome = new File(fiStructure, "index.html");
@@ -112,18 +151,21 @@ public class EntryHelper
 		
 		liFiles.add(bnHome);
 		
-		search(fiStructure, liFiles, hmpIDCache);
+		search(fiStructure, "", iHomeID, liFiles, new HashSet<Long>());
 		
 		return liFiles;
 	}
 	
 	/**
 	 * Search all help entries/files in the given path.
-	 * @param pPath
-	 * @param pFiles
-	 * @param pIDCache
+	 * 
+	 * @param pPath the directory
+	 * @param pRelativePath the path of the directory, relative to the structure path
+	 * @param pParentID the id of the directory
+	 * @param pFiles the found entries
+	 * @param pUsedIDs the already used IDs
 	 */
-	private void search(File pPath, List<IBean> pFiles, HashMap<String, Integer> pIDCache)
+	private void search(File pPath, String pRelativePath, Object pParentID, List<IBean> pFiles, HashSet<Long> pUsedIDs)
 	{
 		File[] files = pPath.listFiles(new StructureFilenameFilter());
 		
@@ -133,19 +175,23 @@ public class EntryHelper
     	
 	    	Bean bean;
 			
-	    	String sAbsPath;
+	    	String sRelativePath;
 	    	
-	    	Integer id;
+	    	Long id;
 	    	
 			for (int i = 0; i < files.length; i++)
 			{
-				sAbsPath = files[i].getAbsolutePath();
-				
 				if (files[i].isDirectory())
 				{
-					id = Integer.valueOf(pIDCache.size());
+					sRelativePath = pRelativePath.length() == 0 ? files[i].getName() : pRelativePath + "/" + files[i].getName();
+					
+					id = Long.valueOf(createID(sRelativePath));
 					
-					pIDCache.put(sAbsPath, id);
+					//collisions are very unlikely, but the next free id is deterministic because the walk order is sorted
+					while (!pUsedIDs.add(id))
+					{
+						id = Long.valueOf(nextID(id.longValue()));
+					}
 	
 					String sName = convertName(files[i].getName(), true);
 					
@@ -160,23 +206,23 @@ public class EntryHelper
 					bean.put("id", id);
 					bean.put("type", "folder");
 					bean.put("name", sName);
-					bean.put("icon", getIcon(files[i]));
+					bean.put("icon", getIcon(files[i], true));
 					
 					if (sURL != null)
 					{
 						bean.put("url", sURL);
 					}
 					
-					bean.put("parentID", pIDCache.get(pPath.getAbsolutePath()));
+					bean.put("parentID", pParentID);
 					
 					pFiles.add(bean);
 					
-					search(files[i], pFiles, pIDCache);
+					search(files[i], sRelativePath, id, pFiles, pUsedIDs);
 				}
 				else
 				{
 					bean = createFileEntry(files[i]);
-					bean.put("parentID", pIDCache.get(pPath.getAbsolutePath()));
+					bean.put("parentID", pParentID);
 					
 					pFiles.add(bean);
 				}
@@ -184,6 +230,54 @@ public class EntryHelper
     	}
 	}
 	
+	/**
+	 * Creates the id of a folder. The id is a hash of the relative path, stays the same as long as
+	 * the folder isn't renamed or moved and doesn't depend on other folders. The id is a positive 
+	 * number with 53 bits, because JavaScript clients can't represent larger numbers exactly.
+	 * 
+	 * @param pRelativePath the path of the folder, relative to the structure path, separated with <code>/</code>
+	 * @return the id
+	 */
+	static long createID(String pRelativePath)
+	{
+		//FNV-1a
+		long lHash = 0xcbf29ce484222325L;
+		
+		for (int i = 0, anz = pRelativePath.length(); i < anz; i++)
+		{
+			lHash ^= pRelativePath.charAt(i);
+			lHash *= 0x100000001b3L;
+		}
+		
+		//mix the high bits into the used bits
+		lHash ^= lHash >>> 32;
+		lHash *= 0xff51afd7ed558ccdL;
+		lHash ^= lHash >>> 29;
+		
+		long lID = lHash & ID_MASK;
+		
+		//0 is no valid id for clients
+		if (lID == 0)
+		{
+			lID = nextID(lID);
+		}
+		
+		return lID;
+	}
+	
+	/**
+	 * Gets the next id, if an id is already used.
+	 * 
+	 * @param pID the used id
+	 * @return the next id
+	 */
+	private static long nextID(long pID)
+	{
+		long lID = (pID + 1) & ID_MASK;
+		
+		return lID == 0 ? 1 : lID;
+	}
+	
 	/**
 	 * Creates a file entry for the given file.
 	 * 
@@ -216,7 +310,7 @@ public class EntryHelper
 		}
 		
 		bean.put("name", sName);
-		bean.put("icon", getIcon(pFile));
+		bean.put("icon", getIcon(pFile, false));
 		bean.put("url", getURL(pFile));
 		
 		return bean;
@@ -296,15 +390,16 @@ public class EntryHelper
 	 * Returns the icon path for the given file.
 	 * 
 	 * @param pFile the file.
+	 * @param pDirectory whether the file is a directory.
 	 * @return the icon path.
 	 */
-	private String getIcon(File pFile)
+	private String getIcon(File pFile, boolean pDirectory)
 	{
 		String sName = convertName(pFile.getName(), false);
 		
 		String sIcon = null;
 		
-		if (pFile.isDirectory())
+		if (pDirectory)
 		{
 			sIcon = getIcon(sName);
 			
@@ -315,19 +410,7 @@ public class EntryHelper
 		}
 		else
 		{
-			//detect the icon with the extension of the file
-			int iPos = pFile.getName().lastIndexOf('.');
-			
-			if (iPos > 0)
-			{
-				sIcon = getIcon(pFile.getName().substring(iPos + 1));
-			}
-			
-			//use the default "file" icon
-			if (sIcon == null) 
-			{
-				sIcon = getIcon("file");
-			}
+			sIcon = icons.getFileIcon(pFile.getName());
 		}
 		
 		return sIcon;
@@ -341,21 +424,7 @@ public class EntryHelper
 	 */
 	private String getIcon(String pName)
 	{
-		String sHelpPath = config.getHelpPath();
-		
-		if (sHelpPath.endsWith("/"))
-		{
-			sHelpPath = sHelpPath.substring(0, sHelpPath.length() - 1);
-		}
-		
-		String sRelativePath = sHelpPath + "/images/tree/" + pName.toLowerCase() + ".png";
-		
-		if (new File(config.getRootPath(), sRelativePath).isFile())
-		{
-			return sRelativePath;
-		}
-		
-		return null;
+		return icons.getIcon(pName);
 	}
 	
 	/**
@@ -382,69 +451,126 @@ public class EntryHelper
 			}
 		}
 
-		String sRelativePath = pPath.getAbsolutePath().substring(config.getRootPath().getAbsolutePath().length() + 1).replace("\\", "/");
+		String sParent = getEncodedPath(pPath.getParentFile());
+		String sName = pPath.getName();
 		
-		String[] sPathEntries = sRelativePath.split("/");
+		StringBuilder sb = new StringBuilder(sParent.length() + sName.length() * 3 + 1);
+		sb.append(sParent);
+		sb.append('/');
 		
-		StringBuilder sb = new StringBuilder();
+		appendEncoded(sb, sName);
 		
-		for (String sPath : sPathEntries)
+		return sb.toString();
+	}
+	
+	/**
+	 * Gets the encoded URL path of the given directory, relative to the root path. The path
+	 * is cached because all files of a directory share the same path.
+	 * 
+	 * @param pDirectory the directory
+	 * @return the encoded path, starting with <code>/</code> or an empty string for the root path
+	 */
+	private String getEncodedPath(File pDirectory)
+	{
+		if (pDirectory == null)
 		{
-			sb.append("/");
-			sb.append(encodeURLPart(sPath));
+			return "";
 		}
 		
-		return sb.toString();
-	}	
+		String sPath = pDirectory.getAbsolutePath();
+		
+		if (sPath.length() <= iRootPathLength)
+		{
+			return "";
+		}
+		
+		String sEncoded = chmEncodedPath.get(sPath);
+		
+		if (sEncoded == null)
+		{
+			String sParent = getEncodedPath(pDirectory.getParentFile());
+			String sName = pDirectory.getName();
+			
+			StringBuilder sb = new StringBuilder(sParent.length() + sName.length() * 3 + 1);
+			sb.append(sParent);
+			sb.append('/');
+			
+			appendEncoded(sb, sName);
+			
+			sEncoded = sb.toString();
+			
+			chmEncodedPath.put(sPath, sEncoded);
+		}
+		
+		return sEncoded;
+	}
 	
 	/**
-	 * Encodes the part for an URL.
+	 * Appends the encoded part of an URL to the given builder. The characters are encoded as UTF-8 and
+	 * all bytes which are not allowed in an URL part are escaped with the precomputed escape table.
 	 * 
-	 * @param pURL the url part
-	 * @return the encoded part
+	 * @param pBuilder the builder
+	 * @param pPart the url part
 	 */
-	private static String encodeURLPart(String pURL)
+	static void appendEncoded(StringBuilder pBuilder, String pPart)
 	{
-		StringBuffer sbfUrl = new StringBuffer();
+		int iCodePoint;
 		
-		int iChar;
-
-		try
+		for (int i = 0, anz = pPart.length(); i < anz; i++)
 		{
-			byte[] by = pURL.getBytes("UTF8");
+			iCodePoint = pPart.charAt(i);
 			
-			for (int i = 0, anz = by.length; i < anz; i++)
+			if (iCodePoint < 0x80)
 			{
-				iChar = by[i];
+				appendByte(pBuilder, iCodePoint);
+			}
+			else if (iCodePoint < 0x800)
+			{
+				appendByte(pBuilder, 0xc0 | (iCodePoint >> 6));
+				appendByte(pBuilder, 0x80 | (iCodePoint & 0x3f));
+			}
+			else if (Character.isHighSurrogate((char)iCodePoint) 
+					 && i + 1 < anz 
+					 && Character.isLowSurrogate(pPart.charAt(i + 1)))
+			{
+				iCodePoint = Character.toCodePoint((char)iCodePoint, pPart.charAt(++i));
 				
-				if ((iChar >= 'a' && iChar <= 'z')
-					|| (iChar >= 'A' && iChar <= 'Z')
-					|| (iChar >= '0' && iChar <= '9')
-					|| iChar == '$'
-					|| iChar == '-'
-					|| iChar == '_'
-					|| iChar == '.'
-					|| iChar == '!'
-					|| iChar == '\''
-					|| iChar == '('
-					|| iChar == ')'
-					|| iChar == ','
-					|| iChar == '/')
-				{
-					sbfUrl.append((char)iChar);
-				}
-				else
-				{
-					sbfUrl.append('%');
-					sbfUrl.append(String.valueOf(Integer.toHexString(((iChar & 0xff) + 256))).substring(1));
-				}
+				appendByte(pBuilder, 0xf0 | (iCodePoint >> 18));
+				appendByte(pBuilder, 0x80 | ((iCodePoint >> 12) & 0x3f));
+				appendByte(pBuilder, 0x80 | ((iCodePoint >> 6) & 0x3f));
+				appendByte(pBuilder, 0x80 | (iCodePoint & 0x3f));
+			}
+			else if (Character.isSurrogate((char)iCodePoint))
+			{
+				//same replacement as String.getBytes for malformed input
+				appendByte(pBuilder, '?');
+			}
+			else
+			{
+				appendByte(pBuilder, 0xe0 | (iCodePoint >> 12));
+				appendByte(pBuilder, 0x80 | ((iCodePoint >> 6) & 0x3f));
+				appendByte(pBuilder, 0x80 | (iCodePoint & 0x3f));
 			}
-			
-			return sbfUrl.toString();
 		}
-		catch (Exception e)
+	}
+	
+	/**
+	 * Appends a single byte, or its escape sequence, to the given builder.
+	 * 
+	 * @param pBuilder the builder
+	 * @param pByte the byte (0 - 255)
+	 */
+	private static void appendByte(StringBuilder pBuilder, int pByte)
+	{
+		char[] chEscape = URL_ESCAPE[pByte];
+		
+		if (chEscape == null)
 		{
-			return null;
+			pBuilder.append((char)pByte);
+		}
+		else
+		{
+			pBuilder.append(chEscape);
 		}
 	}
 	
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2022 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.sibvisions.apps.help.services.util;
+
+import java.io.IOException;
+
+import jvx.rad.type.bean.IBean;
+
+/**
+ * The <code>IEntryHandler</code> receives the found help entries one after another, while the
+ * entries are read from the index.
+ * 
+ * @author Ren Jahn
+ * @see Searcher#searchEntries(String, int, int, String, IEntryHandler)
+ */
+public interface IEntryHandler
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Method definitions
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Notifies that the search found the hits of the page. No entry was read at this time.
+	 * 
+	 * @param pResult the search result without entries
+	 * @throws IOException if handling fails
+	 */
+	public void start(SearchResult pResult) throws IOException;
+
+	/**
+	 * Handles a found entry.
+	 * 
+	 * @param pEntry the entry
+	 * @throws IOException if handling fails
+	 */
+	public void entry(IBean pEntry) throws IOException;
+
+}	// IEntryHandler
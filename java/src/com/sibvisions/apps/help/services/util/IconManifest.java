@@ -0,0 +1,303 @@
+/*
+ * Copyright 2022 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.sibvisions.apps.help.services.util;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The <code>IconManifest</code> contains all tree icons of a help path. The icon directory will be
+ * read once and again only if files were created or deleted, so that the icon of an entry is a 
+ * simple lookup without file access. The icons are found with the lower case name, like a file 
+ * check would find them: on a case insensitive file system with any case, otherwise only icons
+ * with lower case file names.
+ * 
+ * @author Ren Jahn
+ */
+public final class IconManifest
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the minimum interval between two modification checks. */
+	private static final long CHECK_INTERVAL = 2000;
+
+	/** the maximum number of cached manifests. */
+	private static final int MAX_CACHED_MANIFESTS = 256;
+
+	/** the icon directory, relative to the help path. */
+	private static final String ICON_PATH = "/images/tree/";
+
+	/** the extension of icons. */
+	private static final String EXTENSION = ".png";
+
+	/** all cached manifests. */
+	private static ConcurrentHashMap<String, IconManifest> chmManifest = new ConcurrentHashMap<String, IconManifest>();
+
+	/** the icon directory. */
+	private File fiDirectory;
+
+	/** the relative path of the icon directory. */
+	private String sRelativePath;
+
+	/** the relative paths of all icons by icon name. */
+	private volatile Map<String, String> mpIcons = Collections.emptyMap();
+
+	/** the modification time stamp of the icon directory. */
+	private long lModified = -1;
+
+	/** the time of the last modification check. */
+	private long lLastCheck;
+
+	/** the version of the icons, changes whenever the icon directory was read again. */
+	private volatile long lVersion;
+
+	/** the time of the last change. */
+	private volatile long lLastModified;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new instance of <code>IconManifest</code>.
+	 * 
+	 * @param pRootPath the root directory
+	 * @param pHelpPath the help path without trailing slash
+	 */
+	private IconManifest(File pRootPath, String pHelpPath)
+	{
+		sRelativePath = pHelpPath + ICON_PATH;
+		fiDirectory = new File(pRootPath, sRelativePath);
+
+		//don't start with 0 because the version should be different after a restart
+		lVersion = System.currentTimeMillis();
+		lLastModified = lVersion;
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Gets the manifest for the given configuration. The manifest will be created, if necessary, and 
+	 * read again if the icon directory was changed.
+	 * 
+	 * @param pConfig the configuration
+	 * @return the manifest
+	 */
+	public static IconManifest getInstance(Config pConfig)
+	{
+		String sHelpPath = pConfig.getHelpPath();
+
+		if (sHelpPath.endsWith("/"))
+		{
+			sHelpPath = sHelpPath.substring(0, sHelpPath.length() - 1);
+		}
+
+		String sKey = pConfig.getRootPath() + "|" + sHelpPath;
+
+		IconManifest manifest = chmManifest.get(sKey);
+
+		if (manifest == null)
+		{
+			synchronized (chmManifest)
+			{
+				manifest = chmManifest.get(sKey);
+
+				if (manifest == null)
+				{
+					//the help path is a request parameter -> don't grow without limits
+					if (chmManifest.size() >= MAX_CACHED_MANIFESTS)
+					{
+						chmManifest.clear();
+					}
+
+					manifest = new IconManifest(pConfig.getRootPath(), sHelpPath);
+
+					chmManifest.put(sKey, manifest);
+				}
+			}
+		}
+
+		manifest.validate();
+
+		return manifest;
+	}
+
+	/**
+	 * Gets the relative path of an icon.
+	 * 
+	 * @param pName the name of the icon, e.g. folder or pdf
+	 * @return the relative path of the icon or <code>null</code> if the icon doesn't exist
+	 */
+	public String getIcon(String pName)
+	{
+		return mpIcons.get(pName.toLowerCase());
+	}
+
+	/**
+	 * Gets the relative path of the icon for a file. The icon will be detected with the extension of
+	 * the file. The default icon <code>file</code> will be used if no icon exists for the extension.
+	 * 
+	 * @param pFileName the file name
+	 * @return the relative path of the icon or <code>null</code> if no icon exists
+	 */
+	public String getFileIcon(String pFileName)
+	{
+		String sIcon = null;
+
+		int iPos = pFileName.lastIndexOf('.');
+
+		if (iPos > 0)
+		{
+			sIcon = getIcon(pFileName.substring(iPos + 1));
+		}
+
+		if (sIcon == null)
+		{
+			sIcon = getIcon("file");
+		}
+
+		return sIcon;
+	}
+
+	/**
+	 * Gets the version of the icons. The version changes whenever icons were created or deleted.
+	 * 
+	 * @return the version
+	 */
+	public long getVersion()
+	{
+		validate();
+
+		return lVersion;
+	}
+
+	/**
+	 * Gets the time of the last change of the icons. The creation time of the manifest will be used
+	 * if the icons weren't changed.
+	 * 
+	 * @return the time of the last change
+	 */
+	public long lastModified()
+	{
+		validate();
+
+		return lLastModified;
+	}
+
+	/**
+	 * Reads the icon directory again, if files were created or deleted.
+	 */
+	private synchronized void validate()
+	{
+		long lNow = System.currentTimeMillis();
+
+		if (lModified >= 0 && lLastCheck + CHECK_INTERVAL > lNow)
+		{
+			return;
+		}
+
+		lLastCheck = lNow;
+
+		//0 if the directory doesn't exist
+		long lNewModified = fiDirectory.lastModified();
+
+		if (lNewModified == lModified)
+		{
+			return;
+		}
+
+		boolean bFirst = lModified < 0;
+
+		lModified = lNewModified;
+
+		HashMap<String, String> hmpIcons = new HashMap<String, String>();
+
+		String[] sFiles = fiDirectory.list();
+
+		if (sFiles != null)
+		{
+			boolean bIgnoreCase = isCaseInsensitive(sFiles);
+
+			String sName;
+
+			for (int i = 0; i < sFiles.length; i++)
+			{
+				if (sFiles[i].endsWith(EXTENSION)
+					&& new File(fiDirectory, sFiles[i]).isFile())
+				{
+					sName = sFiles[i].substring(0, sFiles[i].length() - EXTENSION.length());
+
+					//the icons will be searched with lower case names -> same path as a file check
+					if (bIgnoreCase)
+					{
+						sName = sName.toLowerCase();
+
+						hmpIcons.put(sName, sRelativePath + sName + EXTENSION);
+					}
+					else
+					{
+						hmpIcons.put(sName, sRelativePath + sFiles[i]);
+					}
+				}
+			}
+		}
+
+		mpIcons = Collections.unmodifiableMap(hmpIcons);
+
+		if (!bFirst)
+		{
+			lVersion++;
+			lLastModified = lNow;
+		}
+	}
+
+	/**
+	 * Checks whether the file system of the icon directory ignores the case of file names.
+	 * 
+	 * @param pFiles the files of the icon directory
+	 * @return <code>true</code> if an existing file can be found with another case, <code>false</code>
+	 *         otherwise
+	 */
+	private boolean isCaseInsensitive(String[] pFiles)
+	{
+		String sOtherCase;
+
+		for (int i = 0; i < pFiles.length; i++)
+		{
+			sOtherCase = pFiles[i].toUpperCase();
+
+			if (sOtherCase.equals(pFiles[i]))
+			{
+				sOtherCase = pFiles[i].toLowerCase();
+			}
+
+			if (!sOtherCase.equals(pFiles[i]))
+			{
+				return new File(fiDirectory, sOtherCase).exists();
+			}
+		}
+
+		return false;
+	}
+
+}	// IconManifest
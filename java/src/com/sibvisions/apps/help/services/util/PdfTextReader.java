@@ -0,0 +1,232 @@
+/*
+ * Copyright 2022 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.sibvisions.apps.help.services.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+/**
+ * The <code>PdfTextReader</code> reads the text of a PDF document page range by page range. Only
+ * the text of the current page range is in memory. Reading stops after the max number of characters
+ * or if the time limit is reached, the remaining text will be ignored. The time limit starts with 
+ * the first read.
+ * 
+ * @author Ren Jahn
+ */
+final class PdfTextReader extends Reader
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the document. */
+	private PDDocument document;
+	
+	/** the text extractor. */
+	private PDFTextStripper stripper;
+	
+	/** the text of the current page range. */
+	private String sText = "";
+	
+	/** the position in the current text. */
+	private int iPos;
+	
+	/** the next page to read (1 based). */
+	private int iPage = 1;
+	
+	/** the number of pages per range. */
+	private int iPagesPerRange;
+	
+	/** the number of characters which can be read. */
+	private int iRemaining;
+	
+	/** the max time (millis) for reading. */
+	private long lMaxTime;
+	
+	/** the time (millis) after which no more pages will be read or <code>-1</code> if not started. */
+	private long lDeadline = -1;
+	
+	/** whether reading was stopped because of a limit. */
+	private boolean bTruncated;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new instance of <code>PdfTextReader</code>. The document won't be closed by the reader.
+	 * 
+	 * @param pDocument the document
+	 * @param pPagesPerRange the number of pages which will be extracted at once
+	 * @param pMaxChars the max number of characters
+	 * @param pMaxTime the max time (millis) for reading
+	 * @throws IOException if creating the text extractor fails
+	 */
+	PdfTextReader(PDDocument pDocument, int pPagesPerRange, int pMaxChars, long pMaxTime) throws IOException
+	{
+		document = pDocument;
+		
+		stripper = new PDFTextStripper();
+		
+		iPagesPerRange = Math.max(1, pPagesPerRange);
+		iRemaining = pMaxChars;
+		lMaxTime = pMaxTime;
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Overwritten methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int read(char[] pBuffer, int pOffset, int pLength) throws IOException
+	{
+		if (pLength == 0)
+		{
+			return 0;
+		}
+		
+		if (!fill())
+		{
+			return -1;
+		}
+		
+		int iLength = Math.min(pLength, Math.min(sText.length() - iPos, iRemaining));
+		
+		sText.getChars(iPos, iPos + iLength, pBuffer, pOffset);
+		
+		iPos += iLength;
+		iRemaining -= iLength;
+		
+		return iLength;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close()
+	{
+		sText = "";
+		iPos = 0;
+		iRemaining = 0;
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Extracts the text of the next page range, if the text of the current range was read.
+	 * 
+	 * @return <code>true</code> if text is available, <code>false</code> if all pages were read 
+	 *         or a limit was reached
+	 * @throws IOException if extracting the text fails
+	 */
+	private boolean fill() throws IOException
+	{
+		int iPageCount = document.getNumberOfPages();
+		
+		if (lDeadline < 0)
+		{
+			lDeadline = System.currentTimeMillis() + lMaxTime;
+		}
+		
+		while (iPos >= sText.length())
+		{
+			if (iPage > iPageCount)
+			{
+				return false;
+			}
+			
+			if (iRemaining <= 0 || System.currentTimeMillis() > lDeadline)
+			{
+				bTruncated = true;
+				
+				return false;
+			}
+			
+			stripper.setStartPage(iPage);
+			stripper.setEndPage(Math.min(iPageCount, iPage + iPagesPerRange - 1));
+			
+			sText = stripper.getText(document);
+			iPos = 0;
+			
+			iPage += iPagesPerRange;
+		}
+		
+		if (iRemaining <= 0)
+		{
+			bTruncated = true;
+			
+			return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Reads the text up to the given number of characters.
+	 * 
+	 * @param pMaxChars the max number of characters
+	 * @return the text
+	 * @throws IOException if extracting the text fails
+	 */
+	String readText(int pMaxChars) throws IOException
+	{
+		StringBuilder sbText = new StringBuilder();
+		
+		char[] chBuffer = new char[8192];
+		
+		int iLength;
+		
+		while (sbText.length() < pMaxChars 
+			   && (iLength = read(chBuffer, 0, Math.min(chBuffer.length, pMaxChars - sbText.length()))) >= 0)
+		{
+			sbText.append(chBuffer, 0, iLength);
+		}
+		
+		return sbText.toString();
+	}
+	
+	/**
+	 * Gets whether all text was read. The next page range will be extracted, if necessary, and 
+	 * its text will be returned with the next read.
+	 * 
+	 * @return <code>true</code> if all pages were read, <code>false</code> otherwise
+	 * @throws IOException if extracting the text fails
+	 */
+	boolean isFinished() throws IOException
+	{
+		return !fill() && !bTruncated;
+	}
+	
+	/**
+	 * Gets whether reading was stopped because of the character or time limit.
+	 * 
+	 * @return <code>true</code> if text was ignored, <code>false</code> otherwise
+	 */
+	boolean isTruncated()
+	{
+		return bTruncated;
+	}
+	
+}	// PdfTextReader
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2022 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.sibvisions.apps.help.services.util;
+
+import java.util.List;
+
+import jvx.rad.type.bean.IBean;
+
+import com.sibvisions.util.ArrayUtil;
+
+/**
+ * The <code>SearchResult</code> is a page of found help entries.
+ * 
+ * @author Ren Jahn
+ * @see Searcher#searchEntries(String, int, int, String)
+ */
+public final class SearchResult
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the number of all hits. */
+	private int iTotalHits;
+
+	/** the position of the first entry. */
+	private int iOffset;
+
+	/** the position of the next page or <code>null</code> if this is the last page. */
+	private String sNext;
+
+	/** the found entries. */
+	private List<IBean> liEntries;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new instance of <code>SearchResult</code>.
+	 * 
+	 * @param pTotalHits the number of all hits
+	 * @param pOffset the position of the first entry
+	 * @param pNext the position of the next page or <code>null</code> if this is the last page
+	 */
+	SearchResult(int pTotalHits, int pOffset, String pNext)
+	{
+		iTotalHits = pTotalHits;
+		iOffset = pOffset;
+		sNext = pNext;
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Gets the number of all hits, not only of this page.
+	 * 
+	 * @return the number of hits
+	 */
+	public int getTotalHits()
+	{
+		return iTotalHits;
+	}
+
+	/**
+	 * Gets the position of the first entry of this page.
+	 * 
+	 * @return the position
+	 */
+	public int getOffset()
+	{
+		return iOffset;
+	}
+
+	/**
+	 * Gets the position of the next page. The position can be used for searching the next page
+	 * as long as the index wasn't changed.
+	 * 
+	 * @return the position or <code>null</code> if this is the last page
+	 */
+	public String getNext()
+	{
+		return sNext;
+	}
+
+	/**
+	 * Sets the found entries.
+	 * 
+	 * @param pEntries the entries
+	 */
+	void setEntries(List<IBean> pEntries)
+	{
+		liEntries = pEntries;
+	}
+
+	/**
+	 * Creates a copy of this result. The entries will be copied as well, so that they can be changed,
+	 * e.g. translated, without changing this result.
+	 * 
+	 * @return the copy
+	 */
+	SearchResult copy()
+	{
+		SearchResult result = new SearchResult(iTotalHits, iOffset, sNext);
+
+		if (liEntries != null)
+		{
+			List<IBean> liCopy = new ArrayUtil<IBean>(liEntries.size());
+
+			for (int i = 0, cnt = liEntries.size(); i < cnt; i++)
+			{
+				liCopy.add(liEntries.get(i).clone());
+			}
+
+			result.liEntries = liCopy;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the found entries.
+	 * 
+	 * @return the entries or <code>null</code> if the entries were sent to an {@link IEntryHandler}
+	 */
+	public List<IBean> getEntries()
+	{
+		return liEntries;
+	}
+
+}	// SearchResult
@@ -16,45 +16,99 @@
 package com.sibvisions.apps.help.services.util;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jvx.rad.type.bean.Bean;
+import jvx.rad.type.bean.IBean;
 
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.LowerCaseFilter;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.reverse.ReverseStringFilter;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
 import org.apache.lucene.document.LongField;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.SegmentInfos;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
 import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.Version;
-import org.apache.pdfbox.cos.COSDocument;
-import org.apache.pdfbox.io.RandomAccessFile;
-import org.apache.pdfbox.pdfparser.PDFParser;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
 
 import com.sibvisions.util.ArrayUtil;
 import com.sibvisions.util.ThreadHandler;
 import com.sibvisions.util.log.LoggerFactory;
+import com.sibvisions.util.type.CodecUtil;
 import com.sibvisions.util.type.CommonUtil;
 import com.sibvisions.util.type.FileUtil;
 
@@ -70,20 +124,111 @@ public class Searcher
 	// Class members
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~	
 	
-	/** The index reader. **/
-	private IndexReader indexReader;
+	/** The fields for searching. **/
+	private static final String[] SEARCH_FIELDS = new String[] {"contents", "name"};
+	
+	/** The fields for infix searching. They contain all suffixes of all words. **/
+	private static final String[] INFIX_FIELDS = new String[] {"contents_infix", "name_infix"};
+	
+	/** The maximum length of an indexed suffix. **/
+	private static final int MAX_SUFFIX_LENGTH = 255;
+	
+	/** The index version. An index with another version will be created again. **/
+	private static final String INDEX_VERSION = "4";
+	
+	/** The version of the index format and the analyzers. **/
+	private static final String ANALYZER_VERSION = INDEX_VERSION + "/" + Version.LUCENE_47;
+	
+	/** The name of the index manifest. It describes the indexed files. **/
+	private static final String MANIFEST = "index.manifest";
+	
+	/** The prefix of the manifest keys for files which couldn't be indexed. **/
+	private static final String MANIFEST_FAILED = "failed.";
+	
+	/** The max number of segments after an index update. **/
+	private static final int MAX_SEGMENTS = 4;
+	
+	/** The type of the contents field. The term vector offsets are used for creating snippets. **/
+	private static final FieldType CONTENTS_TYPE = new FieldType(TextField.TYPE_STORED);
+	
+	/** The type of the streamed contents field. The text is stored with a separate field. **/
+	private static final FieldType CONTENTS_STREAM_TYPE = new FieldType(TextField.TYPE_NOT_STORED);
+	
+	/** The max main memory (bytes) for parsing a PDF document. More memory will be used from temp files. **/
+	private static final long PDF_MEMORY = 4 * 1024 * 1024;
+	
+	/** The number of PDF pages which will be extracted at once. **/
+	private static final int PDF_PAGES_PER_RANGE = 10;
+	
+	/** The max number of indexed characters of a PDF document. **/
+	private static final int PDF_MAX_CHARS = 4 * 1024 * 1024;
+	
+	/** The max number of stored characters of a PDF document (for snippets). **/
+	private static final int PDF_MAX_STORED_CHARS = 256 * 1024;
+	
+	/** The max time (millis) for extracting the text of a PDF document. **/
+	private static final long PDF_MAX_TIME = 60000;
+	
+	/** The pattern for HTML elements without text. **/
+	private static final Pattern HTML_NO_TEXT = Pattern.compile("(?is)<(script|style)[^>]*>.*?</\\1>|<!--.*?-->");
 	
-	/** The index searcher for the index reader. **/
-	private IndexSearcher indexSearcher;
+	/** The pattern for HTML tags. **/
+	private static final Pattern HTML_TAG = Pattern.compile("(?s)<[^>]*>");
+	
+	/** The pattern for HTML entities. **/
+	private static final Pattern HTML_ENTITY = Pattern.compile("&(#[0-9]{1,7}|#[xX][0-9a-fA-F]{1,6}|[a-zA-Z]{2,8});");
+	
+	/** The known named HTML entities. **/
+	private static final HashMap<String, String> HTML_ENTITIES = new HashMap<String, String>();
+	
+	/** The stored fields for file search. **/
+	private static final Set<String> PATH_FIELDS = Collections.singleton("path");
+	
+	/** The stored fields for creating snippets. **/
+	private static final Set<String> CONTENTS_FIELDS = Collections.singleton("contents");
+	
+	/** The stored fields for entry search. **/
+	private static final Set<String> ENTRY_FIELDS = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+			"path", "name", "entry_type", "entry_name", "entry_url")));
+	
+	/** The default size of a snippet fragment. **/
+	private static final int DEFAULT_FRAGMENT_SIZE = 120;
+	
+	/** The default number of snippet fragments. **/
+	private static final int DEFAULT_FRAGMENT_COUNT = 2;
+	
+	/** The default time (in millis) for creating the snippets of a search. **/
+	private static final long DEFAULT_SNIPPET_TIME = 50;
+	
+	/** The max number of cached search results per searcher. **/
+	private static final int MAX_CACHED_RESULTS = 256;
+	
+	/** All known searchers. **/
+	private static ConcurrentHashMap<String, Searcher> chmSearcher = new ConcurrentHashMap<String, Searcher>();
+	
+	/** The searcher manager. Every search acquires the current searcher. **/
+	private volatile SearcherManager searcherManager;
 	
 	/** The standard analyzer. **/
-	private Analyzer analyzer;
+	private Analyzer analyzer = new StandardAnalyzer(Version.LUCENE_47);
+	
+	/** The analyzer for creating the index. **/
+	private Analyzer analyzerIndex;
 	
-	/** The query parser to parse the search text. **/
-	private MultiFieldQueryParser parser;
+	/** The analyzer for splitting the search text into words. **/
+	private Analyzer analyzerWords = new InfixAnalyzer(false);
+	
+	/** Whether the infix fields should be used for searching. **/
+	private volatile boolean bInfixSearch = true;
 	
 	/** The create index thread. **/
 	private Thread thCreateIndex;
+	
+	/** The current or last index creation. **/
+	private volatile CreateIndex ciCurrent;
+	
+	/** The number of started index creations. **/
+	private AtomicInteger aiIndexCreations = new AtomicInteger();
 
 	/** The path to the base directory where the files are located. **/
 	private File fiDirectory;
@@ -91,16 +236,87 @@ public class Searcher
 	/** The path to the index directory. **/
 	private File fiIndexDirectory;
 	
+	/** The path to the directory for all indexes or <code>null</code> to use the temp directory. **/
+	private File fiIndexHome;
+	
 	/** A unique application key to create a folder for the index. **/
 	private String sUniqueApplicationKey;
 
 	/** If the index is initialized. **/
-	private boolean bInitialized = false;
+	private volatile boolean bInitialized = false;
+	
+	/** If {@link #initialize()} was successful. **/
+	private volatile boolean bStarted = false;
+	
+	/** If the initialization was started in the background. **/
+	private AtomicBoolean abBackgroundStarted = new AtomicBoolean();
+	
+	/** The configuration for creating help entries. **/
+	private Config config;
+	
+	/** The watcher of the base directory. **/
+	private volatile StructureWatcher watcher;
+	
+	/** The version of the base directory when the last update was started. **/
+	private volatile long lIndexedVersion;
+	
+	/** The files which couldn't be indexed by the last update, with their size and modification time stamp. **/
+	private volatile HashMap<String, String> hmpFailed = new HashMap<String, String>();
+	
+	/** The time when the searchable index was opened or changed. **/
+	private volatile long lIndexModified;
+	
+	/** The size of a snippet fragment. **/
+	private volatile int iFragmentSize = DEFAULT_FRAGMENT_SIZE;
+	
+	/** The max number of snippet fragments. **/
+	private volatile int iFragmentCount = DEFAULT_FRAGMENT_COUNT;
+	
+	/** The max time (in millis) for creating the snippets of a search. **/
+	private volatile long lSnippetTime = DEFAULT_SNIPPET_TIME;
+	
+	/** The cached search results of the current index version, least recently used first. **/
+	private ResultCache rcResults = new ResultCache();
+	
+	/** The number of searches which used a cached result. **/
+	private AtomicLong alCacheHits = new AtomicLong();
+	
+	/** The number of searches which didn't find a cached result. **/
+	private AtomicLong alCacheMisses = new AtomicLong();
 
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 	// Initialization
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~	
 	
+	static
+	{
+		CONTENTS_TYPE.setStoreTermVectors(true);
+		CONTENTS_TYPE.setStoreTermVectorPositions(true);
+		CONTENTS_TYPE.setStoreTermVectorOffsets(true);
+		CONTENTS_TYPE.freeze();
+		
+		CONTENTS_STREAM_TYPE.setStoreTermVectors(true);
+		CONTENTS_STREAM_TYPE.setStoreTermVectorPositions(true);
+		CONTENTS_STREAM_TYPE.setStoreTermVectorOffsets(true);
+		CONTENTS_STREAM_TYPE.freeze();
+		
+		HTML_ENTITIES.put("nbsp", " ");
+		HTML_ENTITIES.put("amp", "&");
+		HTML_ENTITIES.put("lt", "<");
+		HTML_ENTITIES.put("gt", ">");
+		HTML_ENTITIES.put("quot", "\"");
+		HTML_ENTITIES.put("apos", "'");
+		HTML_ENTITIES.put("auml", "\u00e4");
+		HTML_ENTITIES.put("ouml", "\u00f6");
+		HTML_ENTITIES.put("uuml", "\u00fc");
+		HTML_ENTITIES.put("Auml", "\u00c4");
+		HTML_ENTITIES.put("Ouml", "\u00d6");
+		HTML_ENTITIES.put("Uuml", "\u00dc");
+		HTML_ENTITIES.put("szlig", "\u00df");
+		HTML_ENTITIES.put("euro", "\u20ac");
+		HTML_ENTITIES.put("copy", "\u00a9");
+	}
+	
 	/**
 	 * New instance of <code>Searcher</code>.
 	 * 
@@ -109,6 +325,17 @@ public class Searcher
 	public Searcher(String pUniqueApplicationKey)
 	{
 		sUniqueApplicationKey = pUniqueApplicationKey;
+		
+		HashMap<String, Analyzer> hmpAnalyzer = new HashMap<String, Analyzer>();
+		
+		Analyzer analyzerInfix = new InfixAnalyzer(true);
+		
+		for (int i = 0; i < INFIX_FIELDS.length; i++)
+		{
+			hmpAnalyzer.put(INFIX_FIELDS[i], analyzerInfix);
+		}
+		
+		analyzerIndex = new PerFieldAnalyzerWrapper(analyzer, hmpAnalyzer);
 	}
 		
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
@@ -116,39 +343,337 @@ public class Searcher
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~	
 	
 	/**
-	 * Initializes the <code>Searcher</code>. 
+	 * Gets the searcher for the given application key. The searcher will be created and initialized,
+	 * if necessary. Concurrent calls for the same key get the same searcher and only one index 
+	 * creation will be started.
+	 * 
+	 * @param pUniqueApplicationKey a unique application key
+	 * @param pConfig the configuration
+	 * @return the searcher
+	 * @see #initialize()
+	 */
+	public static Searcher getInstance(String pUniqueApplicationKey, Config pConfig)
+	{
+		return getInstance(pUniqueApplicationKey, pConfig, null);
+	}
+	
+	/**
+	 * Gets the searcher for the given application key. The searcher will be created and initialized,
+	 * if necessary. The index of a new searcher will be stored in the given index home.
+	 * 
+	 * @param pUniqueApplicationKey a unique application key
+	 * @param pConfig the configuration
+	 * @param pIndexHome the directory for all indexes or <code>null</code> to use the temp directory
+	 * @return the searcher
+	 * @see #createKey(Config)
+	 * @see #setIndexHome(File)
+	 */
+	public static Searcher getInstance(String pUniqueApplicationKey, Config pConfig, File pIndexHome)
+	{
+		Searcher search = createInstance(pUniqueApplicationKey, pConfig, pIndexHome);
+		
+		try
+		{
+			search.initializeOnce();
+		}
+		catch (IOException ioe)
+		{
+			//not initialized -> next call will try again
+			throw new RuntimeException(ioe);
+		}
+		
+		return search;
+	}
+	
+	/**
+	 * Starts the initialization of the searcher for the given application key in the background, 
+	 * if necessary. This method doesn't wait and doesn't throw an exception if the initialization
+	 * fails. The error will be logged and the next {@link #getInstance(String, Config, File)} 
+	 * will try again.
+	 * 
+	 * @param pUniqueApplicationKey a unique application key
+	 * @param pConfig the configuration
+	 * @param pIndexHome the directory for all indexes or <code>null</code> to use the temp directory
+	 */
+	public static void startInstance(String pUniqueApplicationKey, Config pConfig, File pIndexHome)
+	{
+		final Searcher search = createInstance(pUniqueApplicationKey, pConfig, pIndexHome);
+		
+		//only once, a failed initialization won't be repeated for every call
+		if (!search.bStarted && search.abBackgroundStarted.compareAndSet(false, true))
+		{
+			ThreadHandler.start(new Runnable()
+			{
+				public void run()
+				{
+					try
+					{
+						search.initializeOnce();
+					}
+					catch (Exception e)
+					{
+						LoggerFactory.getInstance(Searcher.class).error("Initialization of search index failed", e);
+					}
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Gets or creates the searcher for the given application key, without initialization.
+	 * 
+	 * @param pUniqueApplicationKey a unique application key
+	 * @param pConfig the configuration
+	 * @param pIndexHome the directory for all indexes or <code>null</code> to use the temp directory
+	 * @return the searcher
+	 */
+	private static Searcher createInstance(String pUniqueApplicationKey, final Config pConfig, final File pIndexHome)
+	{
+		//only the creation holds the map lock, the initialization locks the searcher
+		return chmSearcher.computeIfAbsent(pUniqueApplicationKey, new Function<String, Searcher>()
+		{
+			public Searcher apply(String pKey)
+			{
+				Searcher search = new Searcher(pKey);
+				search.setConfig(pConfig);
+				search.setIndexHome(pIndexHome);
+				
+				return search;
+			}
+		});
+	}
+	
+	/**
+	 * Creates the application key for the given configuration. The key depends on the structure 
+	 * directory and the help path, but not on the requested host. All requests for the same help 
+	 * use the same searcher and the same index directory.
+	 * 
+	 * @param pConfig the configuration
+	 * @return the key, usable as directory name
+	 */
+	public static String createKey(Config pConfig)
+	{
+		String sHelpPath = pConfig.getHelpPath() == null ? "" : pConfig.getHelpPath();
+		
+		String sSource = pConfig.getStructurePath().getAbsolutePath() + "|" + sHelpPath;
+		
+		String sHash = UUID.nameUUIDFromBytes(sSource.getBytes(StandardCharsets.UTF_8)).toString().replace("-", "");
+		
+		return "help" + sHelpPath.replaceAll("[^A-Za-z0-9.-]", "_") + "_" + sHash.substring(0, 16);
+	}
+	
+	/**
+	 * Initializes the <code>Searcher</code>. An existing index will be opened immediately and the 
+	 * update of the index will be started in the background. This method doesn't wait for the index 
+	 * creation.
 	 * 
 	 * @throws IOException if accessing the index file failed.
+	 * @see #isIndexAvailable()
 	 */
 	public synchronized void initialize() throws IOException
 	{		
-		if (hasNoOrOldIndex(sUniqueApplicationKey))
+		initializeIndexDirectory(sUniqueApplicationKey);
+		
+		watcher = StructureWatcher.getInstance(fiDirectory);
+		
+		openIndex();
+		
+		update();
+		
+		bStarted = true;
+	}	
+	
+	/**
+	 * Initializes the <code>Searcher</code>, if it wasn't initialized successfully. Concurrent calls
+	 * wait for the running initialization.
+	 * 
+	 * @throws IOException if accessing the index file failed.
+	 * @see #initialize()
+	 */
+	private synchronized void initializeOnce() throws IOException
+	{
+		if (!bStarted)
 		{
-			initializeIndexDirectory(sUniqueApplicationKey);
-					
-			thCreateIndex = ThreadHandler.start(new CreateIndex());
+			initialize();
+		}
+	}
+	
+	/**
+	 * Updates the index in the background. Only changed files will be indexed again. The current 
+	 * index will be used for searching until the update is finished. An update won't be started
+	 * if another update is running.
+	 */
+	public synchronized void update()
+	{
+		if (ThreadHandler.isStopped(thCreateIndex))
+		{
+			ciCurrent = new CreateIndex();
 			
-			long lNow = System.currentTimeMillis();
-
-			try
+			if (watcher != null)
+			{
+				lIndexedVersion = watcher.getVersion();
+			}
+			
+			aiIndexCreations.incrementAndGet();
+			
+			thCreateIndex = ThreadHandler.start(ciCurrent);
+		}
+	}
+	
+	/**
+	 * Opens the existing index for searching, if the index was created with the current version. The 
+	 * index can be used until the update is finished.
+	 * 
+	 * @throws IOException if reading the index fails
+	 */
+	private void openIndex() throws IOException
+	{
+		if (searcherManager == null)
+		{
+			Directory dir = FSDirectory.open(fiIndexDirectory);
+			
+			if (DirectoryReader.indexExists(dir))
 			{
-				//wait max 30 seconds for index creation
-				while (!isIndexCreated() && lNow + 30000 >= System.currentTimeMillis())
+				SegmentInfos sis = new SegmentInfos();
+				sis.read(dir);
+				
+				Properties propManifest = readManifest();
+				
+				//an index of another directory or without manifest (e.g. incomplete) won't be used
+				if (INDEX_VERSION.equals(sis.getUserData().get("version"))
+					&& propManifest != null
+					&& fiDirectory.getAbsolutePath().equals(propManifest.getProperty("source")))
 				{
-					Thread.sleep(100);
+					searcherManager = new SearcherManager(dir, new WarmingSearcherFactory());
+					
+					lIndexModified = System.currentTimeMillis();
+					
+					bInitialized = true;
 				}
 			}
-			catch (InterruptedException ie)
+		}
+	}
+	
+	/**
+	 * Reads the manifest of the index directory.
+	 * 
+	 * @return the manifest or <code>null</code> if the manifest is not available
+	 */
+	private Properties readManifest()
+	{
+		File fiManifest = new File(fiIndexDirectory, MANIFEST);
+		
+		if (!fiManifest.exists())
+		{
+			return null;
+		}
+		
+		FileInputStream fis = null;
+		
+		try
+		{
+			fis = new FileInputStream(fiManifest);
+			
+			Properties prop = new Properties();
+			prop.load(fis);
+			
+			return prop;
+		}
+		catch (IOException ioe)
+		{
+			LoggerFactory.getInstance(Searcher.class).debug("Error reading manifest", ioe);
+			
+			return null;
+		}
+		finally
+		{
+			CommonUtil.close(fis);
+		}
+	}
+	
+	/**
+	 * Writes the manifest of the index directory. The manifest contains the indexed directory, the 
+	 * digest of the indexed files, the version of the analyzers and the files which couldn't be indexed.
+	 * 
+	 * @param pDigest the digest of the indexed files
+	 * @param pFailed the failed files with their size and modification time stamp
+	 */
+	private void writeManifest(String pDigest, Map<String, String> pFailed)
+	{
+		Properties prop = new Properties();
+		prop.setProperty("source", fiDirectory.getAbsolutePath());
+		prop.setProperty("digest", pDigest);
+		prop.setProperty("analyzer", ANALYZER_VERSION);
+		
+		for (Map.Entry<String, String> entry : pFailed.entrySet())
+		{
+			prop.setProperty(MANIFEST_FAILED + entry.getKey(), entry.getValue());
+		}
+		
+		File fiManifest = new File(fiIndexDirectory, MANIFEST);
+		File fiTemp = new File(fiIndexDirectory, MANIFEST + ".tmp");
+		
+		FileOutputStream fos = null;
+		
+		try
+		{
+			fos = new FileOutputStream(fiTemp);
+			
+			prop.store(fos, "Search index of " + fiDirectory.getAbsolutePath());
+			
+			fos.close();
+			fos = null;
+			
+			//no half written manifest
+			Files.move(fiTemp.toPath(), fiManifest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException ioe)
+		{
+			LoggerFactory.getInstance(Searcher.class).error("Error writing manifest", ioe);
+		}
+		finally
+		{
+			CommonUtil.close(fos);
+		}
+	}
+	
+	/**
+	 * Gets the files of the manifest which couldn't be indexed.
+	 * 
+	 * @param pManifest the manifest
+	 * @return the failed files with their size and modification time stamp
+	 */
+	private static HashMap<String, String> getFailedFiles(Properties pManifest)
+	{
+		HashMap<String, String> hmpFiles = new HashMap<String, String>();
+		
+		for (String sKey : pManifest.stringPropertyNames())
+		{
+			if (sKey.startsWith(MANIFEST_FAILED))
 			{
-				LoggerFactory.getInstance(Searcher.class).debug(ie);
+				hmpFiles.put(sKey.substring(MANIFEST_FAILED.length()), pManifest.getProperty(sKey));
 			}
 		}
-	}	
+		
+		return hmpFiles;
+	}
 	
 	/**
-	 * Creates all needed directories in the tmp folder.
+	 * Creates the stamp of a file. The stamp changes if the file was changed.
+	 * 
+	 * @param pFile the file
+	 * @return the size and the modification time stamp
+	 */
+	private static String createStamp(File pFile)
+	{
+		return pFile.length() + "/" + pFile.lastModified();
+	}
+	
+	/**
+	 * Creates all needed directories in the index home.
 	 * 
 	 * @param pUniqueApplicationKey a unique key for the application.
+	 * @see #setIndexHome(File)
 	 */
 	private void initializeIndexDirectory(String pUniqueApplicationKey)
 	{
@@ -157,11 +682,16 @@ public class Searcher
 			throw new RuntimeException("No base directory set: Use setDirectory");
 		}
 
-		File fiSearchIndex = new File(new File(System.getProperty("java.io.tmpdir")), "/ohlineHelpServicesSearchIndex");
+		File fiSearchIndex = fiIndexHome;
+		
+		if (fiSearchIndex == null)
+		{
+			fiSearchIndex = new File(new File(System.getProperty("java.io.tmpdir")), "/ohlineHelpServicesSearchIndex");
+		}
 		
 		if (!fiSearchIndex.exists())
 		{
-			if (!fiSearchIndex.mkdir())
+			if (!fiSearchIndex.mkdirs())
 			{
 				throw new RuntimeException("Not able to create directory: " + fiSearchIndex.getAbsolutePath());
 			}
@@ -180,34 +710,6 @@ public class Searcher
 		setIndexDirectory(fiIndex);		
 	}
 	
-	/**
-	 * Returns true if the index directory has files.
-	 * 
-	 * @param pUniqueApplicationKey the unique application key
-	 * @return true if the index directory has files.
-	 * 
-	 * @throws IOException if accessing the index file failed.
-	 */
-	public boolean hasNoOrOldIndex(String pUniqueApplicationKey) throws IOException
-	{	
-		File fiIndexDir = getIndexDirectory();
-		
-		if (fiIndexDir == null || !fiIndexDir.exists())
-		{
-			return true;
-		}
-
-		File[] fiContent = fiIndexDir.listFiles();
-		
-		if (fiContent == null || fiContent.length == 0
-			|| fiIndexDir.lastModified() + 86400000 <= System.currentTimeMillis()) // is index directory older than one day (86400000 Milliseconds)
-		{
-			return true;
-		}
-		
-		return false;
-	}
-	
 	/**
 	 * Sets the directory where the index files should be stored.
 	 * 
@@ -228,6 +730,52 @@ public class Searcher
 		return fiIndexDirectory;
 	}
 	
+	/**
+	 * Sets the directory for all indexes. The index will be stored in a sub directory with the name of
+	 * the application key. The home must be set before initialization. An existing index will be 
+	 * reused without indexing if the indexed files weren't changed.
+	 * 
+	 * @param pPath the directory or <code>null</code> to use the temp directory
+	 */
+	public void setIndexHome(File pPath)
+	{
+		fiIndexHome = pPath;
+	}
+	
+	/**
+	 * Gets the directory for all indexes.
+	 * 
+	 * @return the directory or <code>null</code> if the temp directory is used
+	 */
+	public File getIndexHome()
+	{
+		return fiIndexHome;
+	}
+	
+	/**
+	 * Sets the configuration. The structure directory will be used as directory, and the index
+	 * will contain the help entries of all files.
+	 * 
+	 * @param pConfig the configuration
+	 * @see #searchEntries(String, int)
+	 */
+	public void setConfig(Config pConfig)
+	{
+		config = pConfig;
+		
+		setDirectory(pConfig.getStructurePath());
+	}
+	
+	/**
+	 * Gets the configuration.
+	 * 
+	 * @return the configuration or <code>null</code> if not set
+	 */
+	public Config getConfig()
+	{
+		return config;
+	}
+	
 	/**
 	 * Sets directory where the files are located.
 	 * 
@@ -249,94 +797,980 @@ public class Searcher
 	}
 	
 	/**
-	 * Checks if the Thead <code>CreateIndex</code> is alive.
+	 * Sets whether the infix fields should be used for searching. If disabled, the search 
+	 * uses leading and trailing wildcards.
 	 * 
-	 * @return true if the index is already created.
+	 * @param pEnabled <code>true</code> to use infix fields, <code>false</code> to use wildcards 
 	 */
-	public synchronized boolean isIndexCreated()
+	public void setInfixSearchEnabled(boolean pEnabled)
 	{
-		return ThreadHandler.isStopped(thCreateIndex);
+		bInfixSearch = pEnabled;
 	}
 	
 	/**
-	 * Searches the files to the sSearch string.
+	 * Gets whether the infix fields will be used for searching.
 	 * 
-	 * @param sSearch the search string.
-	 * @param numberHits the max number of hints.
+	 * @return <code>true</code> if infix fields will be used, <code>false</code> if wildcards will be used 
+	 */
+	public boolean isInfixSearchEnabled()
+	{
+		return bInfixSearch;
+	}
+	
+	/**
+	 * Sets the size of a snippet fragment. A snippet contains fragments of the found text.
+	 * 
+	 * @param pSize the number of characters
+	 */
+	public void setFragmentSize(int pSize)
+	{
+		iFragmentSize = Math.max(1, pSize);
+	}
+	
+	/**
+	 * Gets the size of a snippet fragment.
+	 * 
+	 * @return the number of characters
+	 */
+	public int getFragmentSize()
+	{
+		return iFragmentSize;
+	}
+	
+	/**
+	 * Sets the max number of snippet fragments.
+	 * 
+	 * @param pCount the number of fragments or <code>0</code> to create no snippets
+	 */
+	public void setFragmentCount(int pCount)
+	{
+		iFragmentCount = Math.max(0, pCount);
+	}
+	
+	/**
+	 * Gets the max number of snippet fragments.
+	 * 
+	 * @return the number of fragments
+	 */
+	public int getFragmentCount()
+	{
+		return iFragmentCount;
+	}
+	
+	/**
+	 * Sets the max time for creating the snippets of a search. The entries which are found 
+	 * after the time won't have a snippet.
+	 * 
+	 * @param pMillis the time in millis
+	 */
+	public void setSnippetTime(long pMillis)
+	{
+		lSnippetTime = pMillis;
+	}
+	
+	/**
+	 * Gets the max time for creating the snippets of a search.
+	 * 
+	 * @return the time in millis
+	 */
+	public long getSnippetTime()
+	{
+		return lSnippetTime;
+	}
+	
+	/**
+	 * Gets the number of searches which used a cached result.
+	 * 
+	 * @return the number of cache hits
+	 */
+	public long getCacheHitCount()
+	{
+		return alCacheHits.get();
+	}
+	
+	/**
+	 * Gets the number of searches which didn't find a cached result.
+	 * 
+	 * @return the number of cache misses
+	 */
+	public long getCacheMissCount()
+	{
+		return alCacheMisses.get();
+	}
+	
+	/**
+	 * Gets whether an index is available for searching. The index is not available until the 
+	 * first index creation is finished, if no index was created before.
+	 * 
+	 * @return <code>true</code> if searching is possible, <code>false</code> otherwise
+	 */
+	public boolean isIndexAvailable()
+	{
+		return bInitialized && searcherManager != null;
+	}
+	
+	/**
+	 * Gets the version of the searchable index. The version changes with every index update.
+	 * 
+	 * @return the version or <code>-1</code> if no index is available
+	 * @throws IOException if accessing the index fails
+	 * @see #getIndexModified()
+	 */
+	public long getIndexVersion() throws IOException
+	{
+		SearcherManager manager = searcherManager;
+		
+		if (bInitialized && manager != null)
+		{
+			IndexSearcher indexSearcher = manager.acquire();
+			
+			try
+			{
+				return ((DirectoryReader)indexSearcher.getIndexReader()).getVersion();
+			}
+			finally
+			{
+				manager.release(indexSearcher);
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Gets the time when the searchable index was opened or changed.
+	 * 
+	 * @return the time or <code>0</code> if no index is available
+	 */
+	public long getIndexModified()
+	{
+		return lIndexModified;
+	}
+	
+	/**
+	 * Gets the number of processed files of the current or last index creation.
+	 * 
+	 * @return the number of indexed, unchanged and failed files
+	 */
+	public int getProcessedFileCount()
+	{
+		CreateIndex ci = ciCurrent;
+		
+		if (ci == null)
+		{
+			return 0;
+		}
+		
+		return ci.aiAdded.get() + ci.aiUpdated.get() + ci.aiUnchanged.get() + ci.aiFailed.get();
+	}
+	
+	/**
+	 * Gets the number of indexed files of the current or last index creation.
+	 * 
+	 * @return the number of added and updated files
+	 */
+	public int getIndexedFileCount()
+	{
+		CreateIndex ci = ciCurrent;
+		
+		if (ci == null)
+		{
+			return 0;
+		}
+		
+		return ci.aiAdded.get() + ci.aiUpdated.get();
+	}
+	
+	/**
+	 * Gets the number of files which couldn't be indexed by the current or last index creation. 
+	 * Unchanged files which failed before won't be indexed again until the next start.
+	 * 
+	 * @return the number of failed files
+	 */
+	public int getFailedFileCount()
+	{
+		CreateIndex ci = ciCurrent;
+		
+		if (ci == null)
+		{
+			return 0;
+		}
+		
+		return ci.aiFailed.get();
+	}
+	
+	/**
+	 * Gets the number of found files of the current or last index creation. The number grows
+	 * while the directory is read.
+	 * 
+	 * @return the number of found files
+	 */
+	public int getFoundFileCount()
+	{
+		CreateIndex ci = ciCurrent;
+		
+		if (ci == null)
+		{
+			return 0;
+		}
+		
+		return ci.aiFound.get();
+	}
+	
+	/**
+	 * Gets the number of started index creations.
+	 * 
+	 * @return the number of index creations, including the running one
+	 */
+	public int getIndexCreationCount()
+	{
+		return aiIndexCreations.get();
+	}
+	
+	/**
+	 * Checks if the Thead <code>CreateIndex</code> is alive.
+	 * 
+	 * @return true if the index is already created.
+	 */
+	public synchronized boolean isIndexCreated()
+	{
+		return ThreadHandler.isStopped(thCreateIndex);
+	}
+	
+	/**
+	 * Searches the files to the sSearch string.
+	 * 
+	 * @param sSearch the search string.
+	 * @param numberHits the max number of hints.
 	 * @return A list with the path to all founded files.
 	 * @throws IOException if accessing the index file failed.
 	 * @throws ParseException if parsing the input failed.
 	 */
 	public List<String> searchIndex(String sSearch, int numberHits) throws IOException, ParseException
 	{
-		if (bInitialized)
+		List<Document> liDocs = new ArrayList<Document>();
+		
+		searchDocuments(sSearch, 0, numberHits, null, PATH_FIELDS, false, null, null, liDocs);
+		
+		List<String> files = new ArrayUtil<String>();
+		
+		for (int i = 0, cnt = liDocs.size(); i < cnt; i++)
 		{
-			parser.setAllowLeadingWildcard(true);
+			files.add(liDocs.get(i).get("path"));
+		}
+		
+		return files;
+	}
+	
+	/**
+	 * Searches the help entries to the search string. The entries contain the type, the untranslated
+	 * name, the icon, the url and the snippet of the found files. All values are read from the index, without
+	 * file access. The entries are only available if the searcher has a configuration.
+	 * 
+	 * @param pSearch the search string
+	 * @param pNumberHits the max number of hits
+	 * @return the found entries
+	 * @throws IOException if accessing the index file failed
+	 * @throws ParseException if parsing the input failed
+	 * @see #setConfig(Config)
+	 * @see EntryHelper#createFileEntry(File)
+	 */
+	public List<IBean> searchEntries(String pSearch, int pNumberHits) throws IOException, ParseException
+	{
+		return searchEntries(pSearch, 0, pNumberHits, null).getEntries();
+	}
+	
+	/**
+	 * Searches a page of help entries to the search string. Only the hits of the page will be 
+	 * read from the index. The result will be cached until the index changes.
+	 * 
+	 * @param pSearch the search string
+	 * @param pOffset the position of the first entry, if no position of the page is set
+	 * @param pLimit the max number of entries
+	 * @param pAfter the position of the page, from {@link SearchResult#getNext()} of the previous page,
+	 *               or <code>null</code> to use the offset
+	 * @return the found entries
+	 * @throws IOException if accessing the index file failed
+	 * @throws ParseException if parsing the input failed
+	 * @throws IllegalArgumentException if the position is invalid or outdated
+	 * @see #searchEntries(String, int)
+	 * @see #checkPosition(String)
+	 */
+	public SearchResult searchEntries(String pSearch, int pOffset, int pLimit, String pAfter) throws IOException, ParseException
+	{
+		checkUpdate();
+		
+		long lVersion = getIndexVersion();
+		
+		IconManifest icons = getIcons();
+		
+		String sKey = createCacheKey(pSearch, pOffset, pLimit, pAfter, icons);
+		
+		SearchResult result = getCachedResult(sKey, lVersion);
+		
+		if (result != null)
+		{
+			return result.copy();
+		}
+		
+		List<Document> liDocs = new ArrayList<Document>();
+		
+		result = searchDocuments(pSearch, pOffset, pLimit, pAfter, ENTRY_FIELDS, true, null, null, liDocs);
+		
+		List<IBean> liEntries = new ArrayUtil<IBean>();
+		
+		for (int i = 0, cnt = liDocs.size(); i < cnt; i++)
+		{
+			liEntries.add(createEntry(liDocs.get(i), icons));
+		}
+		
+		result.setEntries(liEntries);
+		
+		putCachedResult(sKey, lVersion, result);
+		
+		return result.copy();
+	}
+	
+	/**
+	 * Searches a page of help entries to the search string. Every entry will be sent to the
+	 * handler immediately after it was read from the index or taken from the cache.
+	 * 
+	 * @param pSearch the search string
+	 * @param pOffset the position of the first entry, if no position of the page is set
+	 * @param pLimit the max number of entries
+	 * @param pAfter the position of the page, from {@link SearchResult#getNext()} of the previous page,
+	 *               or <code>null</code> to use the offset
+	 * @param pHandler the handler for the found entries
+	 * @return the search result without entries
+	 * @throws IOException if accessing the index file or handling an entry failed
+	 * @throws ParseException if parsing the input failed
+	 * @throws IllegalArgumentException if the position is invalid or outdated
+	 * @see #checkPosition(String)
+	 */
+	public SearchResult searchEntries(String pSearch, int pOffset, int pLimit, String pAfter, 
+			                          final IEntryHandler pHandler) throws IOException, ParseException
+	{
+		checkUpdate();
+		
+		long lVersion = getIndexVersion();
+		
+		final IconManifest icons = getIcons();
+		
+		String sKey = createCacheKey(pSearch, pOffset, pLimit, pAfter, icons);
+		
+		SearchResult result = getCachedResult(sKey, lVersion);
+		
+		if (result != null)
+		{
+			result = result.copy();
+			
+			List<IBean> liEntries = result.getEntries();
 			
-			List<String> files = new ArrayList<String>();
+			result.setEntries(null);
 			
-			if (!sSearch.startsWith("*"))
+			pHandler.start(result);
+			
+			for (int i = 0, cnt = liEntries.size(); i < cnt; i++)
 			{
-				sSearch = "*" + sSearch;
+				pHandler.entry(liEntries.get(i));
 			}
 			
-			if (!sSearch.endsWith("*"))
+			return result;
+		}
+		
+		final List<IBean> liEntries = new ArrayUtil<IBean>();
+		
+		//the handler may change the entries
+		result = searchDocuments(pSearch, pOffset, pLimit, pAfter, ENTRY_FIELDS, true, new IEntryHandler()
+		{
+			public void start(SearchResult pResult) throws IOException
 			{
-				sSearch = sSearch + "*";
+				pHandler.start(pResult);
 			}
-				
-			Query query = parser.parse(sSearch);
 			
-			TopDocs results = indexSearcher.search(query, numberHits);
+			public void entry(IBean pEntry) throws IOException
+			{
+				liEntries.add(pEntry.clone());
+				
+				pHandler.entry(pEntry);
+			}
+		}, icons, null);
+		
+		SearchResult resultCache = result.copy();
+		resultCache.setEntries(liEntries);
+		
+		putCachedResult(sKey, lVersion, resultCache);
+		
+		return result;
+	}
+	
+	/**
+	 * Creates the cache key for a search. The key contains the normalized search words and 
+	 * all settings which change the result.
+	 * 
+	 * @param pSearch the search string
+	 * @param pOffset the position of the first entry
+	 * @param pLimit the max number of entries
+	 * @param pAfter the position of the page
+	 * @param pIcons the icons of the entries or <code>null</code> if not available
+	 * @return the key
+	 * @throws IOException if analyzing the search string fails
+	 */
+	private String createCacheKey(String pSearch, int pOffset, int pLimit, String pAfter, IconManifest pIcons) throws IOException
+	{
+		StringBuilder sbKey = new StringBuilder();
+		
+		if (bInfixSearch)
+		{
+			//same words -> same query
+			String[] sWords = getWords(pSearch);
 			
-			ScoreDoc[] hits = results.scoreDocs;
+			for (int i = 0; i < sWords.length; i++)
+			{
+				sbKey.append(sWords[i]);
+				sbKey.append(' ');
+			}
+		}
+		else
+		{
+			sbKey.append("*");
+			sbKey.append(pSearch);
+		}
+		
+		sbKey.append('|');
+		sbKey.append(Math.max(0, pOffset));
+		sbKey.append('|');
+		sbKey.append(Math.max(1, pLimit));
+		sbKey.append('|');
+		sbKey.append(pAfter);
+		sbKey.append('|');
+		sbKey.append(iFragmentSize);
+		sbKey.append('|');
+		sbKey.append(iFragmentCount);
+		
+		if (pIcons != null)
+		{
+			//the icons aren't part of the index
+			sbKey.append('|');
+			sbKey.append(pIcons.getVersion());
+		}
+		
+		return sbKey.toString();
+	}
+	
+	/**
+	 * Gets a cached search result. All cached results will be removed if the index version has changed.
+	 * 
+	 * @param pKey the cache key
+	 * @param pVersion the current index version
+	 * @return the cached result (shared) or <code>null</code> if no result is cached
+	 */
+	private SearchResult getCachedResult(String pKey, long pVersion)
+	{
+		SearchResult result;
+		
+		synchronized (rcResults)
+		{
+			if (rcResults.lVersion != pVersion)
+			{
+				rcResults.clear();
+				rcResults.lVersion = pVersion;
+			}
 			
-			Document doc;
+			result = rcResults.get(pKey);
+		}
+		
+		if (result != null)
+		{
+			alCacheHits.incrementAndGet();
+		}
+		else
+		{
+			alCacheMisses.incrementAndGet();
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Caches a search result, if the index version wasn't changed.
+	 * 
+	 * @param pKey the cache key
+	 * @param pVersion the index version which was used for searching
+	 * @param pResult the result
+	 */
+	private void putCachedResult(String pKey, long pVersion, SearchResult pResult)
+	{
+		//no index available
+		if (pVersion < 0)
+		{
+			return;
+		}
+		
+		synchronized (rcResults)
+		{
+			if (rcResults.lVersion == pVersion)
+			{
+				rcResults.put(pKey, pResult);
+			}
+		}
+	}
+	
+	/**
+	 * Gets the icons of the found entries.
+	 * 
+	 * @return the icons or <code>null</code> if no configuration is set
+	 */
+	private IconManifest getIcons()
+	{
+		if (config == null)
+		{
+			return null;
+		}
+		
+		return IconManifest.getInstance(config);
+	}
+	
+	/**
+	 * Creates the help entry of a found document. The icon will be detected with the current icons,
+	 * because the icons may change without changing the document.
+	 * 
+	 * @param pDocument the document
+	 * @param pIcons the icons or <code>null</code> if not available
+	 * @return the entry
+	 */
+	private static IBean createEntry(Document pDocument, IconManifest pIcons)
+	{
+		String sFileName = pDocument.get("name");
+		
+		IBean bean = new Bean();
+		bean.put("type", pDocument.get("entry_type"));
+		bean.put("name", pDocument.get("entry_name"));
+		bean.put("icon", pIcons != null && sFileName != null ? pIcons.getFileIcon(sFileName) : null);
+		bean.put("url", pDocument.get("entry_url"));
+		
+		String sSnippet = pDocument.get("snippet");
+		
+		if (sSnippet != null)
+		{
+			bean.put("snippet", sSnippet);
+		}
+		
+		return bean;
+	}
+	
+	/**
+	 * Searches a page of documents to the search string. An index update will be started if files
+	 * were created or deleted since the last update. Only the hits of the page will be collected
+	 * and only their stored fields will be read.
+	 * 
+	 * @param sSearch the search string
+	 * @param pOffset the position of the first hit, if no position of the page is set
+	 * @param pLimit the max number of hits
+	 * @param pAfter the position of the page or <code>null</code> to use the offset
+	 * @param pFields the stored fields to load
+	 * @param pSnippets <code>true</code> to add the snippet to the found documents
+	 * @param pHandler the handler for entries or <code>null</code> to collect the documents
+	 * @param pIcons the icons for the entries of the handler
+	 * @param pDocuments the found documents, one document per path, if no handler is set
+	 * @return the search result without entries
+	 * @throws IOException if accessing the index file failed
+	 * @throws ParseException if parsing the input failed
+	 * @throws IllegalArgumentException if the position is invalid or outdated
+	 */
+	private SearchResult searchDocuments(String sSearch, int pOffset, int pLimit, String pAfter, Set<String> pFields, 
+			                             boolean pSnippets, IEntryHandler pHandler, IconManifest pIcons, 
+			                             List<Document> pDocuments) throws IOException, ParseException
+	{
+		long lStart = System.currentTimeMillis();
+		
+		checkUpdate();
+		
+		int iOffset = Math.max(0, pOffset);
+		int iLimit = Math.max(1, pLimit);
+		
+		Position posAfter = null;
+		
+		if (pAfter != null)
+		{
+			posAfter = parsePosition(pAfter);
 			
-			String sPath;
+			//the position contains the offset of the page
+			iOffset = posAfter.iOffset;
+		}
+		
+		SearchResult result = new SearchResult(0, iOffset, null);
+		
+		SearcherManager manager = searcherManager;
+		
+		if (bInitialized && manager != null)
+		{
+			String[] sWords = getWords(sSearch);
 			
-			LoggerFactory.getInstance(Searcher.class).debug("Found hits: ", Integer.valueOf(hits.length));
+			Query query;
 			
-			for (int i = 0; i < hits.length; i++)
+			if (bInfixSearch)
+			{
+				query = createInfixQuery(sWords);
+			}
+			else
 			{
-				doc = indexSearcher.doc(hits[i].doc);
+				//the parser is not thread-safe
+				MultiFieldQueryParser parser = new MultiFieldQueryParser(Version.LUCENE_47, SEARCH_FIELDS, analyzer);
+				parser.setAllowLeadingWildcard(true);
+				
+				if (!sSearch.startsWith("*"))
+				{
+					sSearch = "*" + sSearch;
+				}
 				
-				sPath = doc.get("path");
+				if (!sSearch.endsWith("*"))
+				{
+					sSearch = sSearch + "*";
+				}
+				
+				query = parser.parse(sSearch);
+			}
+			
+			if (query != null)
+			{
+				IndexSearcher indexSearcher = manager.acquire();
 				
-				//No duplicates
-				if (!files.contains(sPath))
+				try
+				{
+					long lVersion = ((DirectoryReader)indexSearcher.getIndexReader()).getVersion();
+					
+					//the collector size mustn't be greater than the number of documents
+					int iMaxDoc = Math.max(1, indexSearcher.getIndexReader().maxDoc());
+					
+					TopDocs results;
+					
+					if (posAfter != null)
+					{
+						if (posAfter.lVersion != lVersion)
+						{
+							//the hits of the previous page were changed
+							throw new IllegalArgumentException("Outdated position: " + pAfter);
+						}
+						
+						//only the hits of the page will be collected
+						results = indexSearcher.searchAfter(posAfter.sdLast, query, Math.min(iLimit, iMaxDoc));
+					}
+					else
+					{
+						TopScoreDocCollector collector = TopScoreDocCollector.create((int)Math.min((long)iOffset + iLimit, iMaxDoc), true);
+						
+						indexSearcher.search(query, collector);
+						
+						results = collector.topDocs(iOffset, iLimit);
+					}
+					
+					ScoreDoc[] hits = results.scoreDocs;
+					
+					LoggerFactory.getInstance(Searcher.class).debug("Found hits: ", Integer.valueOf(hits.length), 
+							                                        " of ", Integer.valueOf(results.totalHits));
+					
+					String sNext = null;
+					
+					if (hits.length > 0 && iOffset + hits.length < results.totalHits)
+					{
+						ScoreDoc sdLast = hits[hits.length - 1];
+						
+						sNext = lVersion + "_" + (iOffset + hits.length) + "_" + sdLast.doc + "_" + sdLast.score;
+					}
+					
+					result = new SearchResult(results.totalHits, iOffset, sNext);
+					
+					if (pHandler != null)
+					{
+						pHandler.start(result);
+					}
+					
+					HashSet<String> setPaths = new HashSet<String>();
+					
+					Document doc;
+					
+					int iCount = iFragmentCount;
+					int iSize = iFragmentSize;
+					
+					long lSnippetEnd = lStart + lSnippetTime;
+					
+					String sSnippet;
+					
+					for (int i = 0; i < hits.length; i++)
+					{
+						//only the needed stored fields, e.g. without the contents of PDFs
+						doc = indexSearcher.doc(hits[i].doc, pFields);
+						
+						//No duplicates
+						if (setPaths.add(doc.get("path")))
+						{
+							//the entries after the time limit won't have a snippet
+							if (pSnippets 
+								&& iCount > 0 
+								&& sWords.length > 0
+								&& System.currentTimeMillis() < lSnippetEnd)
+							{
+								sSnippet = SnippetBuilder.create(indexSearcher.getIndexReader().getTermVector(hits[i].doc, "contents"),
+										                         indexSearcher.doc(hits[i].doc, CONTENTS_FIELDS).get("contents"), 
+										                         sWords, iSize, iCount, lSnippetEnd);
+								
+								if (sSnippet != null)
+								{
+									doc.add(new StoredField("snippet", sSnippet));
+								}
+							}
+							
+							if (pHandler != null)
+							{
+								pHandler.entry(createEntry(doc, pIcons));
+							}
+							else
+							{
+								pDocuments.add(doc);
+							}
+						}
+					}
+					
+					return result;
+				}
+				finally
 				{
-					files.add(sPath);
+					manager.release(indexSearcher);
 				}
 			}
+		}
+		
+		if (pHandler != null)
+		{
+			pHandler.start(result);
+		}
+		
+		return result;
+	}
+
+	/**
+	 * Checks whether the given position of a page can be used for searching. The position is only 
+	 * valid for the index version which was used for searching the previous page.
+	 * 
+	 * @param pPosition the position, from {@link SearchResult#getNext()}
+	 * @throws IllegalArgumentException if the position is invalid or outdated
+	 * @throws IOException if accessing the index fails
+	 */
+	public void checkPosition(String pPosition) throws IOException
+	{
+		Position pos = parsePosition(pPosition);
+		
+		if (pos.lVersion != getIndexVersion())
+		{
+			throw new IllegalArgumentException("Outdated position: " + pPosition);
+		}
+	}
 	
-			return files;
+	/**
+	 * Parses the position of a page. The position contains the index version, the offset of the
+	 * page and the last hit of the previous page.
+	 * 
+	 * @param pPosition the position
+	 * @return the position
+	 * @throws IllegalArgumentException if the position is invalid
+	 */
+	private static Position parsePosition(String pPosition)
+	{
+		String[] sParts = pPosition.split("_");
+		
+		if (sParts.length == 4)
+		{
+			try
+			{
+				Position pos = new Position();
+				pos.lVersion = Long.parseLong(sParts[0]);
+				pos.iOffset = Integer.parseInt(sParts[1]);
+				pos.sdLast = new ScoreDoc(Integer.parseInt(sParts[2]), Float.parseFloat(sParts[3]));
+				
+				if (pos.iOffset >= 0)
+				{
+					return pos;
+				}
+			}
+			catch (NumberFormatException nfe)
+			{
+				//invalid
+			}
 		}
 		
-		return new ArrayUtil<String>();
+		throw new IllegalArgumentException("Invalid position: " + pPosition);
 	}
 
+	/**
+	 * Starts an index update if files were created or deleted since the last update.
+	 */
+	private void checkUpdate()
+	{
+		StructureWatcher swatcher = watcher;
+		
+		//removed files will be removed from the index with the next update
+		if (swatcher != null && swatcher.getVersion() != lIndexedVersion)
+		{
+			update();
+		}
+	}
+	
+	/**
+	 * Gets the lower case words of the given search text.
+	 * 
+	 * @param pSearch the search text
+	 * @return the words
+	 * @throws IOException if analyzing the text fails
+	 */
+	private String[] getWords(String pSearch) throws IOException
+	{
+		List<String> liWords = new ArrayList<String>();
+		
+		TokenStream stream = analyzerWords.tokenStream(INFIX_FIELDS[0], pSearch);
+		
+		try
+		{
+			CharTermAttribute attTerm = stream.addAttribute(CharTermAttribute.class);
+			
+			stream.reset();
+			
+			while (stream.incrementToken())
+			{
+				liWords.add(attTerm.toString());
+			}
+			
+			stream.end();
+		}
+		finally
+		{
+			stream.close();
+		}
+		
+		return liWords.toArray(new String[liWords.size()]);
+	}
+	
+	/**
+	 * Creates the query for searching the given words anywhere in the infix fields. Every word 
+	 * is a possible match.
+	 * 
+	 * @param pWords the words
+	 * @return the query or <code>null</code> if there are no words
+	 */
+	private Query createInfixQuery(String[] pWords)
+	{
+		if (pWords.length == 0)
+		{
+			return null;
+		}
+		
+		BooleanQuery query = new BooleanQuery();
+		
+		for (int i = 0; i < pWords.length; i++)
+		{
+			//a word is part of an indexed word if it is the start of a suffix
+			for (int j = 0; j < INFIX_FIELDS.length; j++)
+			{
+				query.add(new PrefixQuery(new Term(INFIX_FIELDS[j], pWords[i])), Occur.SHOULD);
+			}
+		}
+		
+		return query;
+	}
+	
+	/**
+	 * Gets the text of a HTML document.
+	 * 
+	 * @param pHtml the HTML document
+	 * @return the text without tags, scripts and styles, with decoded entities
+	 */
+	private static String toText(String pHtml)
+	{
+		String sText = HTML_NO_TEXT.matcher(pHtml).replaceAll(" ");
+		sText = HTML_TAG.matcher(sText).replaceAll(" ");
+		
+		Matcher mat = HTML_ENTITY.matcher(sText);
+		
+		StringBuffer sbText = new StringBuffer(sText.length());
+		
+		String sEntity;
+		String sValue;
+		
+		while (mat.find())
+		{
+			sEntity = mat.group(1);
+			
+			if (sEntity.charAt(0) == '#')
+			{
+				try
+				{
+					int iCodePoint;
+					
+					if (sEntity.length() > 1 && (sEntity.charAt(1) == 'x' || sEntity.charAt(1) == 'X'))
+					{
+						iCodePoint = Integer.parseInt(sEntity.substring(2), 16);
+					}
+					else
+					{
+						iCodePoint = Integer.parseInt(sEntity.substring(1));
+					}
+					
+					sValue = Character.isValidCodePoint(iCodePoint) ? new String(Character.toChars(iCodePoint)) : null;
+				}
+				catch (NumberFormatException nfe)
+				{
+					sValue = null;
+				}
+			}
+			else
+			{
+				sValue = HTML_ENTITIES.get(sEntity);
+			}
+			
+			mat.appendReplacement(sbText, Matcher.quoteReplacement(sValue != null ? sValue : mat.group()));
+		}
+		
+		mat.appendTail(sbText);
+		
+		return sbText.toString();
+	}
+	
 	/**
 	 * Closes search engine.
 	 */
 	private void close()
 	{
-		if (indexReader != null)
+		bInitialized = false;
+		
+		if (searcherManager != null)
 		{
 			try
 			{
-				indexReader.close();
+				//searchers in use will be closed after release
+				searcherManager.close();
 			}
 			catch (Exception e)
 			{
 				//nothing to be done
 			}
+			
+			searcherManager = null;
 		}
 		
 		if (analyzer != null)
 		{
 			analyzer.close();
 		}
+		
+		if (analyzerIndex != null)
+		{
+			analyzerIndex.close();
+		}
+		
+		if (analyzerWords != null)
+		{
+			analyzerWords.close();
+		}
 	}
 	
 	/**
@@ -363,6 +1797,40 @@ public class Searcher
 	 */
 	class CreateIndex implements Runnable 
 	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Class members
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** the number of found files. */
+		private AtomicInteger aiFound = new AtomicInteger();
+		
+		/** the number of added files. */
+		private AtomicInteger aiAdded = new AtomicInteger();
+		
+		/** the number of updated files. */
+		private AtomicInteger aiUpdated = new AtomicInteger();
+		
+		/** the number of unchanged files. */
+		private AtomicInteger aiUnchanged = new AtomicInteger();
+		
+		/** the number of files which couldn't be indexed. */
+		private AtomicInteger aiFailed = new AtomicInteger();
+		
+		/** the files which couldn't be indexed, with their stamp. */
+		private ConcurrentHashMap<String, String> chmFailed = new ConcurrentHashMap<String, String>();
+		
+		/** the failed files of the previous update. Unchanged files won't be indexed again. */
+		private HashMap<String, String> hmpFailedBefore = hmpFailed;
+		
+		/** the number of indexed bytes. */
+		private AtomicLong alBytes = new AtomicLong();
+		
+		/** the number of deleted files. */
+		private int iDeleted;
+		
+		/** the helper for creating help entries (untranslated). */
+		private EntryHelper ehEntries;
+		
 	    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 	    // Interface implementation
 	    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
@@ -374,23 +1842,106 @@ public class Searcher
 		{			
 			try
 			{
-				close();
-
 				LoggerFactory.getInstance(Searcher.class).debug("Index directory = ", fiIndexDirectory);
 				
 				Directory dir = FSDirectory.open(fiIndexDirectory);
 				
-				analyzer = new StandardAnalyzer(Version.LUCENE_47);
-				
-				IndexWriterConfig iwc = new IndexWriterConfig(Version.LUCENE_47, analyzer);
+				IndexWriterConfig iwc = new IndexWriterConfig(Version.LUCENE_47, analyzerIndex);
 				iwc.setOpenMode(OpenMode.CREATE_OR_APPEND);
 
 				IndexWriter writer = null;
 				
+				if (config != null)
+				{
+					ehEntries = new EntryHelper(config);
+				}
+				
+				long lStart = System.currentTimeMillis();
+				
+				String sDigest = createDigest();
+				
+				Properties propManifest = readManifest();
+				
+				//the opened index contains all files -> no need to read the index and walk again. Failed
+				//files of the manifest will be tried again after a start
+				if (searcherManager != null
+					&& propManifest != null
+					&& fiDirectory.getAbsolutePath().equals(propManifest.getProperty("source"))
+					&& ANALYZER_VERSION.equals(propManifest.getProperty("analyzer"))
+					&& sDigest.equals(propManifest.getProperty("digest"))
+					&& getFailedFiles(propManifest).equals(hmpFailedBefore))
+				{
+					aiFailed.set(hmpFailedBefore.size());
+					
+					LoggerFactory.getInstance(Searcher.class).info("Index reused: ", fiIndexDirectory, 
+							                                       ", time = ", Long.valueOf(System.currentTimeMillis() - lStart), " ms");
+					
+					bInitialized = true;
+					
+					return;
+				}
+				
 				try
 				{
+					//all files of the existing index
+					HashMap<String, Long> hmpIndexed = getIndexedFiles(dir);
+					
+					if (hmpIndexed == null)
+					{
+						//index with other fields or analyzers
+						iwc.setOpenMode(OpenMode.CREATE);
+						
+						hmpIndexed = new HashMap<String, Long>();
+					}
+					
 					writer = new IndexWriter(dir, iwc);
-					indexDocs(writer, fiDirectory);
+					writer.setCommitData(Collections.singletonMap("version", INDEX_VERSION));
+					
+					//the walker (this thread) passes files to the workers. If all workers are busy and the
+					//queue is full, the walker extracts the file itself and doesn't find more files
+					int iWorkers = Math.max(1, Runtime.getRuntime().availableProcessors());
+					
+					ThreadPoolExecutor executor = new ThreadPoolExecutor(iWorkers, iWorkers, 0L, TimeUnit.MILLISECONDS, 
+							                                             new ArrayBlockingQueue<Runnable>(iWorkers * 4), 
+							                                             new WorkerThreadFactory(),
+							                                             new ThreadPoolExecutor.CallerRunsPolicy());
+					
+					try
+					{
+						indexDocs(executor, writer, fiDirectory, hmpIndexed);
+					}
+					finally
+					{
+						executor.shutdown();
+					}
+					
+					try
+					{
+						while (!executor.awaitTermination(1, TimeUnit.SECONDS))
+						{
+							LoggerFactory.getInstance(Searcher.class).debug("Waiting for index workers: ", Long.valueOf(executor.getCompletedTaskCount()));
+						}
+					}
+					catch (InterruptedException ie)
+					{
+						executor.shutdownNow();
+						
+						throw new InterruptedIOException("Indexing was interrupted");
+					}
+					
+					//remaining files were deleted
+					for (String sPath : hmpIndexed.keySet())
+					{
+						writer.deleteDocuments(new Term("path", sPath));
+						
+						iDeleted++;
+					}
+					
+					//every update adds segments -> merge to keep searches fast
+					if (aiAdded.get() + aiUpdated.get() > 0 || iDeleted > 0)
+					{
+						writer.forceMerge(MAX_SEGMENTS);
+					}
 				}
 				finally
 				{
@@ -400,23 +1951,51 @@ public class Searcher
 					}
 				}
 				
+				long lDuration = Math.max(1, System.currentTimeMillis() - lStart);
+				
+				int iIndexed = aiAdded.get() + aiUpdated.get();
+				
+				LoggerFactory.getInstance(Searcher.class).info("Index updated: ", fiIndexDirectory, 
+						                                       ", added = ", Integer.valueOf(aiAdded.get()), 
+						                                       ", updated = ", Integer.valueOf(aiUpdated.get()), 
+						                                       ", deleted = ", Integer.valueOf(iDeleted), 
+						                                       ", unchanged = ", Integer.valueOf(aiUnchanged.get()),
+						                                       ", failed = ", Integer.valueOf(aiFailed.get()),
+						                                       ", time = ", Long.valueOf(lDuration), " ms",
+						                                       ", files/s = ", Long.valueOf(iIndexed * 1000L / lDuration),
+						                                       ", KB/s = ", Long.valueOf(alBytes.get() * 1000L / 1024L / lDuration));
+				
+				//the failed files will be indexed again with the next start or if they were changed
+				hmpFailed = new HashMap<String, String>(chmFailed);
+				
+				writeManifest(sDigest, hmpFailed);
+				
 				// IndexReader can only be created after index creation.
-
-				indexReader = DirectoryReader.open(FSDirectory.open(fiIndexDirectory));
-				indexSearcher = new IndexSearcher(indexReader);
-				analyzer = new StandardAnalyzer(Version.LUCENE_47);		
-
-				parser = new MultiFieldQueryParser(Version.LUCENE_47, new String[] {"contents", "name"}, analyzer);
+				
+				if (searcherManager == null)
+				{
+					searcherManager = new SearcherManager(dir, new WarmingSearcherFactory());
+					
+					lIndexModified = System.currentTimeMillis();
+				}
+				else
+				{
+					//opens and warms a new searcher in this thread and swaps it -> searches use 
+					//the old searcher until the new one is available
+					searcherManager.maybeRefresh();
+					
+					if (iIndexed > 0 || iDeleted > 0)
+					{
+						lIndexModified = System.currentTimeMillis();
+					}
+				}
 				
 				bInitialized = true;
 			}
 			catch (IOException e)
 			{
-				LoggerFactory.getInstance(Searcher.class).debug(e);
-
-				close();
-				
-				bInitialized = false;
+				//the current searcher (if available) is still valid
+				LoggerFactory.getInstance(Searcher.class).error(e);
 			}
 		}
 		
@@ -425,13 +2004,143 @@ public class Searcher
 		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~	
 
 		/**
-		 * Creates an index for the given file.
+		 * Adds a stored field to the document, if the value is available.
+		 * 
+		 * @param pDocument the document
+		 * @param pName the field name
+		 * @param pValue the value or <code>null</code>
+		 */
+		private void addStoredField(Document pDocument, String pName, Object pValue)
+		{
+			if (pValue != null)
+			{
+				pDocument.add(new StoredField(pName, pValue.toString()));
+			}
+		}
+		
+		/**
+		 * Creates the digest of all files which will be indexed. The digest contains the paths, the 
+		 * sizes and the modification time stamps, but not the contents.
+		 * 
+		 * @return the digest (hex)
+		 * @throws IOException if creating the digest fails
+		 */
+		private String createDigest() throws IOException
+		{
+			try
+			{
+				MessageDigest md = MessageDigest.getInstance("SHA-1");
+				
+				addDigest(md, fiDirectory);
+				
+				return CodecUtil.encodeHex(md.digest());
+			}
+			catch (NoSuchAlgorithmException nsae)
+			{
+				throw new IOException(nsae);
+			}
+		}
+		
+		/**
+		 * Adds a file or all files of a directory to the digest. The files are sorted, because the order
+		 * of listed files is not defined.
+		 * 
+		 * @param pDigest the digest
+		 * @param pFile the file or directory
+		 */
+		private void addDigest(MessageDigest pDigest, File pFile)
+		{
+			if (pFile.canRead() && accept(pFile))
+			{
+				if (pFile.isDirectory())
+				{
+					String[] files = pFile.list();
+					
+					if (files != null)
+					{
+						Arrays.sort(files);
+						
+						for (int i = 0; i < files.length; i++)
+						{
+							addDigest(pDigest, new File(pFile, files[i]));
+						}
+					}
+				}
+				else
+				{
+					pDigest.update(pFile.getPath().getBytes(StandardCharsets.UTF_8));
+					pDigest.update((byte)0);
+					pDigest.update(Long.toString(pFile.length()).getBytes(StandardCharsets.UTF_8));
+					pDigest.update((byte)0);
+					pDigest.update(Long.toString(pFile.lastModified()).getBytes(StandardCharsets.UTF_8));
+					pDigest.update((byte)0);
+				}
+			}
+		}
+		
+		/**
+		 * Gets all indexed files with their modification time stamp.
+		 * 
+		 * @param pDirectory the index directory
+		 * @return the path of all indexed files and the modification time stamp or <code>null</code> 
+		 *         if the time stamp is not available. <code>null</code> if the index has another version.
+		 * @throws IOException if reading the index fails
+		 */
+		private HashMap<String, Long> getIndexedFiles(Directory pDirectory) throws IOException
+		{
+			HashMap<String, Long> hmpFiles = new HashMap<String, Long>();
+			
+			if (DirectoryReader.indexExists(pDirectory))
+			{
+				DirectoryReader reader = DirectoryReader.open(pDirectory);
+				
+				try
+				{
+					if (!INDEX_VERSION.equals(reader.getIndexCommit().getUserData().get("version")))
+					{
+						return null;
+					}
+					
+					Set<String> setFields = new HashSet<String>(Arrays.asList("path", "modified"));
+					
+					Bits bitsLive = MultiFields.getLiveDocs(reader);
+					
+					Document doc;
+					
+					IndexableField field;
+					
+					for (int i = 0, cnt = reader.maxDoc(); i < cnt; i++)
+					{
+						if (bitsLive == null || bitsLive.get(i))
+						{
+							doc = reader.document(i, setFields);
+							
+							field = doc.getField("modified");
+							
+							//older indexes don't store the modification
+							hmpFiles.put(doc.get("path"), field != null && field.numericValue() != null ? Long.valueOf(field.numericValue().longValue()) : null);
+						}
+					}
+				}
+				finally
+				{
+					reader.close();
+				}
+			}
+			
+			return hmpFiles;
+		}
+		
+		/**
+		 * Walks through the given file and passes all files which should be indexed to the extraction workers. 
+		 * Files which are already indexed with the same modification time stamp won't be indexed again.
 		 * 
+		 * @param pExecutor the extraction workers
 		 * @param writer the index writer.
 		 * @param file the file.
-		 * @throws IOException 
+		 * @param pIndexed the already indexed files. Found files will be removed. 
 		 */
-		private void indexDocs(IndexWriter writer, File file) throws IOException 
+		private void indexDocs(Executor pExecutor, final IndexWriter writer, File file, HashMap<String, Long> pIndexed) 
 		{
 			if (file.canRead() && accept(file)) 
 			{
@@ -443,111 +2152,254 @@ public class Searcher
 					{
 						for (int i = 0; i < files.length; i++) 
 						{
-							indexDocs(writer, new File(file, files[i]));
+							indexDocs(pExecutor, writer, new File(file, files[i]), pIndexed);
 						}
 					}
 				} 
 				else 
-				{					
-					LoggerFactory.getInstance(Searcher.class).debug("Index file: ", file);
+				{
+					aiFound.incrementAndGet();
+					
+					final boolean bIndexed = pIndexed.containsKey(file.getPath());
+					
+					if (bIndexed)
+					{
+						Long lModified = pIndexed.remove(file.getPath());
+						
+						if (lModified != null && lModified.longValue() == file.lastModified())
+						{
+							aiUnchanged.incrementAndGet();
+							
+							return;
+						}
+					}
+					
+					String sStamp = hmpFailedBefore.get(file.getPath());
+					
+					if (sStamp != null && sStamp.equals(createStamp(file)))
+					{
+						chmFailed.put(file.getPath(), sStamp);
+						
+						aiFailed.incrementAndGet();
+						
+						return;
+					}
+					
+					final File fiDoc = file;
+					
+					pExecutor.execute(new Runnable()
+					{
+						public void run()
+						{
+							indexFile(writer, fiDoc, bIndexed);
+						}
+					});
+				}
+			}
+		}
+		
+		/**
+		 * Extracts the content of the given file and writes the document to the index. An error
+		 * will be logged and doesn't stop indexing of other files.
+		 * 
+		 * @param writer the index writer.
+		 * @param file the file.
+		 * @param pUpdate <code>true</code> to replace an already indexed document, <code>false</code> to add
+		 *                a new document
+		 */
+		private void indexFile(IndexWriter writer, File file, boolean pUpdate)
+		{
+			//the extracted text of a large PDF document, until the document was written
+			File fiSpool = null;
+			
+			Reader rdContents = null;
+			Reader rdInfix = null;
+			
+			try
+			{
+				LoggerFactory.getInstance(Searcher.class).debug("Index file: ", file);
+
+                Document doc = new Document();
 
-					FileInputStream fis = null;
-				    
+                Field pathField = new StringField("path", file.getPath(), Field.Store.YES);
+                
+                doc.add(pathField);
+                
+                doc.add(new LongField("modified", file.lastModified(), Field.Store.YES));
+                
+                if (file.getName().endsWith(".pdf"))
+                {
+                    //parsed objects above the limit are kept in temp files
+                    PDDocument pdf = PDDocument.load(file, MemoryUsageSetting.setupMixed(PDF_MEMORY));
+                    
                     try
                     {
-                        Document doc = new Document();
-    
-                        Field pathField = new StringField("path", file.getPath(), Field.Store.YES);
+                        //the text will be extracted once, with one time limit for the whole document
+                        PdfTextReader reader = new PdfTextReader(pdf, PDF_PAGES_PER_RANGE, PDF_MAX_CHARS, PDF_MAX_TIME);
                         
-                        doc.add(pathField);
+                        String sText = reader.readText(PDF_MAX_STORED_CHARS);
                         
-                        doc.add(new LongField("modified", file.lastModified(), Field.Store.NO));
-                        
-                        if (file.getName().endsWith(".pdf"))
+                        if (reader.isFinished() || reader.isTruncated())
                         {
-                            RandomAccessFile raf = null;
-                            
-                            try
-                            {
-                                raf = new RandomAccessFile(file, "r");
-                            
-                                PDFParser pdfParser = new PDFParser(raf);  
-                                pdfParser.parse();  
-        
-                                COSDocument cd = pdfParser.getDocument();
-        
-                                try
-                                {
-                                    PDFTextStripper stripper = new PDFTextStripper();  
-                                    
-                                    doc.add(new TextField("contents", stripper.getText(new PDDocument(cd)), Field.Store.YES));
-                                }
-                                finally
-                                {
-                                    cd.close();
-                                }
-                            }
-                            finally
-                            {
-                                CommonUtil.close(raf);
-                            }
+                            doc.add(new Field("contents", sText, CONTENTS_TYPE));
+                            doc.add(new TextField("contents_infix", sText, Field.Store.NO));
                         }
-                        else if (file.getName().endsWith(".doc")) // Word
+                        else
                         {
-                            //Include Apache POI
+                            //large document: the beginning is stored for snippets and the whole text
+                            //will be read from the spool file by both fields
+                            fiSpool = File.createTempFile("searcher", ".txt");
                             
-    //                          POIFSFileSystem fs = new POIFSFileSystem(fis);  
-    //                          WordExtractor extractor = new WordExtractor(fs);  
-    //                          String wordText = extractor.getText();                              
-                        }
-                        else if (file.getName().endsWith(".xls")) // Excel
-                        {
-                            //Include Apache POI
+                            spool(fiSpool, sText, reader);
                             
-    //                          POIFSFileSystem fs = new POIFSFileSystem(fis);  
-    //                          ExcelExtractor extractor = new ExcelExtractor(fs);  
-    //                          String excelText = extractor.getText();                             
-                        }
-                        else if (file.getName().endsWith(".ppt")) // Powerpoint
-                        {
-    //                          POIFSFileSystem fs = new POIFSFileSystem(new FileInputStream("filename.ppt"));  
-    //                          PowerPointExtractor extractor  = new PowerPointExtractor(fs);  
-    //                          String powerText = extractor.getText();                             
-                        }
-                        else
-                        {
-                            try
-                            {
-                                fis = new FileInputStream(file);
-                                
-                                doc.add(new TextField("contents", new BufferedReader(new InputStreamReader(fis, "UTF-8"))));
-                            }
-                            catch (FileNotFoundException fnfe)
-                            {
-                            	fnfe.printStackTrace();
-                                // at least on windows, some temporary files raise this exception with an "access denied" message
-                                // checking if the file can be read doesn't help
-                                return;
-                            }
+                            rdContents = openSpool(fiSpool);
+                            rdInfix = openSpool(fiSpool);
+                            
+                            doc.add(new StoredField("contents", sText));
+                            doc.add(new Field("contents", rdContents, CONTENTS_STREAM_TYPE));
+                            doc.add(new TextField("contents_infix", rdInfix));
                         }
-    
-                        doc.add(new StringField("name", file.getName(), Field.Store.YES));
                         
-                        if (writer.getConfig().getOpenMode() == OpenMode.CREATE) 
-                        {
-                            writer.addDocument(doc);
-                        }
-                        else
+                        if (reader.isTruncated())
                         {
-                            writer.updateDocument(new Term("path", file.getPath()), doc);
+                            LoggerFactory.getInstance(Searcher.class).info("PDF text truncated: ", file);
                         }
                     }
                     finally
                     {
-                        CommonUtil.close(fis);
+                        pdf.close();
+                    }
+                }
+                else if (file.getName().endsWith(".doc")) // Word
+                {
+                    //Include Apache POI
+                    
+//                          POIFSFileSystem fs = new POIFSFileSystem(fis);  
+//                          WordExtractor extractor = new WordExtractor(fs);  
+//                          String wordText = extractor.getText();                              
+                }
+                else if (file.getName().endsWith(".xls")) // Excel
+                {
+                    //Include Apache POI
+                    
+//                          POIFSFileSystem fs = new POIFSFileSystem(fis);  
+//                          ExcelExtractor extractor = new ExcelExtractor(fs);  
+//                          String excelText = extractor.getText();                             
+                }
+                else if (file.getName().endsWith(".ppt")) // Powerpoint
+                {
+//                          POIFSFileSystem fs = new POIFSFileSystem(new FileInputStream("filename.ppt"));  
+//                          PowerPointExtractor extractor  = new PowerPointExtractor(fs);  
+//                          String powerText = extractor.getText();                             
+                }
+                else
+                {
+                    try
+                    {
+                        //the text is stored for snippets -> without markup
+                        String sText = toText(new String(FileUtil.getContent(file), "UTF-8"));
+                        
+                        doc.add(new Field("contents", sText, CONTENTS_TYPE));
+                        doc.add(new TextField("contents_infix", sText, Field.Store.NO));
+                    }
+                    catch (FileNotFoundException fnfe)
+                    {
+                    	fnfe.printStackTrace();
+                        // at least on windows, some temporary files raise this exception with an "access denied" message
+                        // checking if the file can be read doesn't help
+                        return;
                     }
+                }
+
+                doc.add(new StringField("name", file.getName(), Field.Store.YES));
+                doc.add(new TextField("name_infix", file.getName(), Field.Store.NO));
+                
+                if (ehEntries != null)
+                {
+                    //the display data of search results
+                    Bean bean = ehEntries.createFileEntry(file);
+                    
+                    //the icon will be detected with the current icons when searching
+                    addStoredField(doc, "entry_type", bean.get("type"));
+                    addStoredField(doc, "entry_name", bean.get("name"));
+                    addStoredField(doc, "entry_url", bean.get("url"));
+                }
+                
+                if (pUpdate) 
+                {
+                    writer.updateDocument(new Term("path", file.getPath()), doc);
+                    
+                    aiUpdated.incrementAndGet();
+                }
+                else
+                {
+                    writer.addDocument(doc);
+                    
+                    aiAdded.incrementAndGet();
+                }
+                
+                alBytes.addAndGet(file.length());
+			}
+			catch (Exception e)
+			{
+				chmFailed.put(file.getPath(), createStamp(file));
+				
+				aiFailed.incrementAndGet();
+				
+				LoggerFactory.getInstance(Searcher.class).error("Indexing failed: ", file, e);
+			}
+			finally
+			{
+				CommonUtil.close(rdContents, rdInfix);
+				
+				if (fiSpool != null)
+				{
+					fiSpool.delete();
+				}
+			}
+		}
+		
+		/**
+		 * Writes the extracted text of a document to the spool file.
+		 * 
+		 * @param pFile the spool file
+		 * @param pText the already read text
+		 * @param pReader the reader for the remaining text
+		 * @throws IOException if reading or writing fails
+		 */
+		private void spool(File pFile, String pText, Reader pReader) throws IOException
+		{
+			Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(pFile), StandardCharsets.UTF_8));
+			
+			try
+			{
+				writer.write(pText);
+				
+				char[] chBuffer = new char[8192];
+				
+				int iLength;
+				
+				while ((iLength = pReader.read(chBuffer, 0, chBuffer.length)) >= 0)
+				{
+					writer.write(chBuffer, 0, iLength);
 				}
 			}
+			finally
+			{
+				writer.close();
+			}
+		}
+		
+		/**
+		 * Opens a reader for the spool file.
+		 * 
+		 * @param pFile the spool file
+		 * @return the reader
+		 * @throws IOException if opening fails
+		 */
+		private Reader openSpool(File pFile) throws IOException
+		{
+			return new BufferedReader(new InputStreamReader(new FileInputStream(pFile), StandardCharsets.UTF_8));
 		}
 		
 		/**
@@ -564,5 +2416,162 @@ public class Searcher
 		}
 		
 	} 	// CreateIndex
+	
+	/**
+	 * The <code>InfixAnalyzer</code> splits a text into lower case words and optionally into all suffixes 
+	 * of the words, e.g. config, onfig, nfig, fig, ig, g. All suffixes of a word have the same position.
+	 * 
+	 * @author Ren Jahn
+	 */
+	private static final class InfixAnalyzer extends Analyzer
+	{
+		/** whether suffixes should be created. */
+		private boolean bSuffixes;
+		
+		/**
+		 * Creates a new instance of <code>InfixAnalyzer</code>.
+		 * 
+		 * @param pSuffixes <code>true</code> to create suffixes, <code>false</code> to create words
+		 */
+		private InfixAnalyzer(boolean pSuffixes)
+		{
+			bSuffixes = pSuffixes;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected TokenStreamComponents createComponents(String pFieldName, Reader pReader)
+		{
+			Tokenizer tokenizer = new StandardTokenizer(Version.LUCENE_47, pReader);
+			
+			TokenStream stream = new LowerCaseFilter(Version.LUCENE_47, tokenizer);
+			
+			if (bSuffixes)
+			{
+				//the prefixes of the reversed word are the reversed suffixes
+				stream = new ReverseStringFilter(Version.LUCENE_47, stream);
+				stream = new EdgeNGramTokenFilter(Version.LUCENE_47, stream, 1, MAX_SUFFIX_LENGTH);
+				stream = new ReverseStringFilter(Version.LUCENE_47, stream);
+			}
+			
+			return new TokenStreamComponents(tokenizer, stream);
+		}
+		
+	}	// InfixAnalyzer
+	
+	/**
+	 * The <code>ResultCache</code> caches the search results of one index version. The least recently
+	 * used result will be removed if the cache is full.
+	 * 
+	 * @author Ren Jahn
+	 */
+	private static final class ResultCache extends LinkedHashMap<String, SearchResult>
+	{
+		/** the serial version. */
+		private static final long serialVersionUID = 1L;
+		
+		/** the index version of the cached results. */
+		private long lVersion = -1;
+		
+		/**
+		 * Creates a new instance of <code>ResultCache</code>.
+		 */
+		private ResultCache()
+		{
+			super(16, 0.75f, true);
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, SearchResult> pEldest)
+		{
+			return size() > MAX_CACHED_RESULTS;
+		}
+		
+	}	// ResultCache
+	
+	/**
+	 * The <code>Position</code> is the parsed position of a page.
+	 * 
+	 * @author Ren Jahn
+	 * @see Searcher#parsePosition(String)
+	 */
+	private static final class Position
+	{
+		/** the index version of the previous page. */
+		private long lVersion;
+		
+		/** the offset of the page. */
+		private int iOffset;
+		
+		/** the last hit of the previous page. */
+		private ScoreDoc sdLast;
+		
+	}	// Position
+	
+	/**
+	 * The <code>WarmingSearcherFactory</code> warms new searchers before they will be used for searching.
+	 * 
+	 * @author Ren Jahn
+	 */
+	private static final class WarmingSearcherFactory extends SearcherFactory
+	{
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public IndexSearcher newSearcher(IndexReader pReader) throws IOException
+		{
+			IndexSearcher searcher = new IndexSearcher(pReader);
+			
+			//loads the term index of the search fields and the stored fields 
+			for (int i = 0; i < SEARCH_FIELDS.length; i++)
+			{
+				searcher.search(new PrefixQuery(new Term(SEARCH_FIELDS[i], "a")), 1);
+			}
+			
+			for (int i = 0; i < INFIX_FIELDS.length; i++)
+			{
+				searcher.search(new PrefixQuery(new Term(INFIX_FIELDS[i], "a")), 1);
+			}
+			
+			TopDocs docs = searcher.search(new MatchAllDocsQuery(), 1);
+			
+			if (docs.scoreDocs.length > 0)
+			{
+				searcher.doc(docs.scoreDocs[0].doc);
+			}
+			
+			return searcher;
+		}
+		
+	}	// WarmingSearcherFactory
+	
+	/**
+	 * The <code>WorkerThreadFactory</code> creates daemon threads for extracting documents.
+	 * 
+	 * @author Ren Jahn
+	 */
+	private final class WorkerThreadFactory implements ThreadFactory
+	{
+		/** the number of created threads. */
+		private AtomicInteger aiThreads = new AtomicInteger();
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		public Thread newThread(Runnable pRunnable)
+		{
+			Thread th = new Thread(pRunnable, "Searcher-" + sUniqueApplicationKey + "-" + aiThreads.incrementAndGet());
+			th.setDaemon(true);
+			
+			return th;
+		}
+		
+	}	// WorkerThreadFactory
 
 } 	// Searcher
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2022 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.sibvisions.apps.help.services.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.lucene.index.DocsAndPositionsEnum;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * The <code>SnippetBuilder</code> creates the snippet of a found document. The snippet contains
+ * fragments of the text around the matching words. The matching words are highlighted with
+ * <code>&lt;b&gt;</code>, the text is HTML escaped.
+ * 
+ * @author Ren Jahn
+ */
+final class SnippetBuilder
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the separator between fragments. */
+	private static final String ELLIPSIS = "\u2026";
+
+	/** the number of read term positions between two time checks. */
+	private static final int TIME_CHECK_INTERVAL = 256;
+
+	/** the order of offsets. */
+	private static final Comparator<int[]> OFFSET_ORDER = new Comparator<int[]>()
+	{
+		public int compare(int[] pFirst, int[] pSecond)
+		{
+			return pFirst[0] - pSecond[0];
+		}
+	};
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Invisible constructor because <code>SnippetBuilder</code> is a utility class.
+	 */
+	private SnippetBuilder()
+	{
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates the snippet of a document. The positions of the matching words are read from the
+	 * term vector, the text won't be analyzed again. Reading the term vector stops at the given
+	 * time, because the term vector of a large document contains many terms.
+	 * 
+	 * @param pTermVector the term vector with offsets
+	 * @param pText the stored text
+	 * @param pWords the searched words (lower case), a term matches if it contains a word
+	 * @param pFragmentSize the size of a fragment (characters)
+	 * @param pFragmentCount the max number of fragments
+	 * @param pDeadline the time (millis) after which no snippet will be created
+	 * @return the snippet or <code>null</code> if no word was found or the time is over
+	 * @throws IOException if reading the term vector fails
+	 */
+	static String create(Terms pTermVector, String pText, String[] pWords, 
+			             int pFragmentSize, int pFragmentCount, long pDeadline) throws IOException
+	{
+		if (pTermVector == null || pText == null || !pTermVector.hasOffsets())
+		{
+			return null;
+		}
+		
+		List<int[]> liOffsets = new ArrayList<int[]>();
+
+		TermsEnum tenum = pTermVector.iterator(null);
+
+		DocsAndPositionsEnum dpenum = null;
+
+		BytesRef term;
+		
+		int iRead = 0;
+
+		while ((term = tenum.next()) != null)
+		{
+			if (++iRead % TIME_CHECK_INTERVAL == 0 && System.currentTimeMillis() > pDeadline)
+			{
+				return null;
+			}
+			
+			if (matches(term.utf8ToString(), pWords))
+			{
+				//a term vector contains one document
+				dpenum = tenum.docsAndPositions(null, dpenum, DocsAndPositionsEnum.FLAG_OFFSETS);
+
+				if (dpenum != null && dpenum.nextDoc() != DocIdSetIterator.NO_MORE_DOCS)
+				{
+					for (int i = 0, cnt = dpenum.freq(); i < cnt; i++)
+					{
+						if (++iRead % TIME_CHECK_INTERVAL == 0 && System.currentTimeMillis() > pDeadline)
+						{
+							return null;
+						}
+						
+						dpenum.nextPosition();
+
+						if (dpenum.startOffset() >= 0 && dpenum.endOffset() <= pText.length())
+						{
+							liOffsets.add(new int[] {dpenum.startOffset(), dpenum.endOffset()});
+						}
+					}
+				}
+			}
+		}
+
+		if (liOffsets.isEmpty())
+		{
+			return null;
+		}
+
+		Collections.sort(liOffsets, OFFSET_ORDER);
+
+		StringBuilder sbSnippet = new StringBuilder();
+
+		int iFragments = 0;
+		int iEnd = 0;
+
+		int[] iOffset;
+
+		for (int i = 0, cnt = liOffsets.size(); i < cnt && iFragments < pFragmentCount; i++)
+		{
+			iOffset = liOffsets.get(i);
+
+			//already highlighted in the last fragment
+			if (iOffset[0] < iEnd)
+			{
+				continue;
+			}
+
+			//the word is in the middle of the fragment
+			int iFragmentStart = Math.max(iEnd, iOffset[0] - Math.max(0, pFragmentSize - (iOffset[1] - iOffset[0])) / 2);
+			int iFragmentEnd = Math.min(pText.length(), Math.max(iOffset[1], iFragmentStart + pFragmentSize));
+
+			//don't cut words
+			while (iFragmentStart > iEnd && iFragmentStart < iOffset[0] && !Character.isWhitespace(pText.charAt(iFragmentStart - 1)))
+			{
+				iFragmentStart++;
+			}
+
+			while (iFragmentEnd < pText.length() && iFragmentEnd > iOffset[1] && !Character.isWhitespace(pText.charAt(iFragmentEnd)))
+			{
+				iFragmentEnd--;
+			}
+
+			if (iFragmentStart > iEnd)
+			{
+				sbSnippet.append(ELLIPSIS);
+			}
+
+			int iPos = iFragmentStart;
+
+			//highlight all words of the fragment
+			for (int j = i; j < cnt && liOffsets.get(j)[0] < iFragmentEnd; j++)
+			{
+				iOffset = liOffsets.get(j);
+
+				if (iOffset[0] >= iPos)
+				{
+					appendEscaped(sbSnippet, pText, iPos, iOffset[0]);
+
+					sbSnippet.append("<b>");
+					appendEscaped(sbSnippet, pText, iOffset[0], Math.min(iOffset[1], iFragmentEnd));
+					sbSnippet.append("</b>");
+
+					iPos = Math.min(iOffset[1], iFragmentEnd);
+				}
+			}
+
+			appendEscaped(sbSnippet, pText, iPos, iFragmentEnd);
+
+			iEnd = iFragmentEnd;
+
+			iFragments++;
+		}
+
+		int iLength = sbSnippet.length();
+
+		if (iLength > 0 && sbSnippet.charAt(iLength - 1) == ' ')
+		{
+			sbSnippet.setLength(iLength - 1);
+		}
+
+		if (iEnd < pText.length())
+		{
+			sbSnippet.append(ELLIPSIS);
+		}
+
+		return sbSnippet.toString();
+	}
+
+	/**
+	 * Checks whether the given term contains one of the given words.
+	 * 
+	 * @param pTerm the term
+	 * @param pWords the words
+	 * @return <code>true</code> if the term contains a word, <code>false</code> otherwise
+	 */
+	private static boolean matches(String pTerm, String[] pWords)
+	{
+		for (int i = 0; i < pWords.length; i++)
+		{
+			if (pTerm.contains(pWords[i]))
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Appends a part of the text as HTML escaped text. Line breaks and multiple whitespaces will be
+	 * replaced with one space.
+	 * 
+	 * @param pBuilder the builder
+	 * @param pText the text
+	 * @param pStart the start position (inclusive)
+	 * @param pEnd the end position (exclusive)
+	 */
+	private static void appendEscaped(StringBuilder pBuilder, String pText, int pStart, int pEnd)
+	{
+		char ch;
+
+		for (int i = pStart; i < pEnd; i++)
+		{
+			ch = pText.charAt(i);
+
+			switch (ch)
+			{
+				case '&':
+					pBuilder.append("&amp;");
+					break;
+				case '<':
+					pBuilder.append("&lt;");
+					break;
+				case '>':
+					pBuilder.append("&gt;");
+					break;
+				case '"':
+					pBuilder.append("&quot;");
+					break;
+				case '\'':
+					pBuilder.append("&#39;");
+					break;
+				default:
+					if (Character.isWhitespace(ch))
+					{
+						if (pBuilder.length() > 0 && pBuilder.charAt(pBuilder.length() - 1) != ' ')
+						{
+							pBuilder.append(' ');
+						}
+					}
+					else
+					{
+						pBuilder.append(ch);
+					}
+			}
+		}
+	}
+
+}	// SnippetBuilder
@@ -0,0 +1,424 @@
+/*
+ * Copyright 2022 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.sibvisions.apps.help.services.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.sibvisions.util.log.LoggerFactory;
+import com.sibvisions.util.type.CommonUtil;
+
+/**
+ * The <code>StructureWatcher</code> detects changes of a help structure directory. Every
+ * detected change increments the version of the watcher. The detection uses a {@link WatchService}
+ * and falls back to a file time stamp check in the background if the file system doesn't support 
+ * watching. All watchers should be closed with {@link #closeAll()} when the application stops.
+ * 
+ * @author Ren Jahn
+ */
+public final class StructureWatcher
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the interval between two time stamp checks, if watching is not supported. */
+	private static final long CHECK_INTERVAL = 2000;
+
+	/** all known watchers. */
+	private static ConcurrentHashMap<File, StructureWatcher> chmWatcher = new ConcurrentHashMap<File, StructureWatcher>();
+
+	/** the executor for all time stamp checks. */
+	private static ScheduledExecutorService sesCheck;
+
+	/** the watched directory. */
+	private File fiDirectory;
+
+	/** the watch service or <code>null</code> if watching is not supported. */
+	private WatchService wsWatcher;
+
+	/** the current version. */
+	private volatile long lVersion;
+
+	/** the time of the last detected change. */
+	private volatile long lLastModified;
+
+	/** the last time stamp of all files (fallback mode). */
+	private long lStamp;
+
+	/** whether the first time stamp was read (fallback mode). */
+	private boolean bStamped;
+
+	/** the scheduled time stamp check (fallback mode). */
+	private ScheduledFuture<?> sfCheck;
+
+	/** whether the watcher was closed. */
+	private boolean bClosed;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new instance of <code>StructureWatcher</code>.
+	 * 
+	 * @param pDirectory the directory to watch
+	 */
+	private StructureWatcher(File pDirectory)
+	{
+		fiDirectory = pDirectory;
+
+		//don't start with 0 because the version should be different after a restart
+		lVersion = System.currentTimeMillis();
+		lLastModified = lVersion;
+
+		try
+		{
+			wsWatcher = FileSystems.getDefault().newWatchService();
+
+			register(fiDirectory.toPath());
+		}
+		catch (Exception e)
+		{
+			LoggerFactory.getInstance(StructureWatcher.class).info("Watching is not supported for ", fiDirectory, e);
+
+			CommonUtil.close(wsWatcher);
+
+			wsWatcher = null;
+		}
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Gets the watcher for the given directory. The watcher will be created, if necessary.
+	 * 
+	 * @param pDirectory the directory
+	 * @return the watcher
+	 */
+	public static StructureWatcher getInstance(File pDirectory)
+	{
+		StructureWatcher watcher = chmWatcher.get(pDirectory);
+
+		if (watcher == null)
+		{
+			synchronized (chmWatcher)
+			{
+				watcher = chmWatcher.get(pDirectory);
+
+				if (watcher == null)
+				{
+					watcher = new StructureWatcher(pDirectory);
+
+					if (watcher.wsWatcher == null)
+					{
+						watcher.startCheck();
+					}
+
+					chmWatcher.put(pDirectory, watcher);
+				}
+			}
+		}
+
+		return watcher;
+	}
+
+	/**
+	 * Closes all watchers, e.g. when the application stops. The watch services and the time stamp 
+	 * checks will be stopped. A watcher which is requested again will be created again.
+	 */
+	public static void closeAll()
+	{
+		synchronized (chmWatcher)
+		{
+			for (StructureWatcher watcher : chmWatcher.values())
+			{
+				watcher.close();
+			}
+
+			chmWatcher.clear();
+		}
+
+		synchronized (StructureWatcher.class)
+		{
+			if (sesCheck != null)
+			{
+				sesCheck.shutdownNow();
+
+				sesCheck = null;
+			}
+		}
+	}
+
+	/**
+	 * Gets the watched directory.
+	 * 
+	 * @return the directory
+	 */
+	public File getDirectory()
+	{
+		return fiDirectory;
+	}
+
+	/**
+	 * Gets the current version of the directory. The version changes whenever a file or directory
+	 * was created, changed or deleted. Without watch service, the version will be changed by the 
+	 * background check.
+	 * 
+	 * @return the version
+	 */
+	public synchronized long getVersion()
+	{
+		if (wsWatcher != null)
+		{
+			boolean bChanged = false;
+
+			try
+			{
+				WatchKey key;
+
+				while ((key = wsWatcher.poll()) != null)
+				{
+					Path path = (Path)key.watchable();
+
+					for (WatchEvent<?> event : key.pollEvents())
+					{
+						bChanged = true;
+
+						if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+						{
+							register(fiDirectory.toPath());
+						}
+						else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE)
+						{
+							Path pathChild = path.resolve((Path)event.context());
+
+							if (pathChild.toFile().isDirectory())
+							{
+								register(pathChild);
+							}
+						}
+					}
+
+					key.reset();
+				}
+			}
+			catch (ClosedWatchServiceException cwse)
+			{
+				bChanged = true;
+
+				wsWatcher = null;
+
+				if (!bClosed)
+				{
+					startCheck();
+				}
+			}
+			catch (IOException ioe)
+			{
+				LoggerFactory.getInstance(StructureWatcher.class).debug(ioe);
+
+				bChanged = true;
+			}
+
+			if (bChanged)
+			{
+				lVersion++;
+				lLastModified = System.currentTimeMillis();
+			}
+		}
+
+		return lVersion;
+	}
+
+	/**
+	 * Gets the time of the last detected change. The creation time of the watcher will be used if
+	 * no change was detected.
+	 * 
+	 * @return the time of the last change
+	 * @see #getVersion()
+	 */
+	public long lastModified()
+	{
+		getVersion();
+
+		return lLastModified;
+	}
+
+	/**
+	 * Starts the time stamp check in the background. The directory tree will be checked every 
+	 * {@link #CHECK_INTERVAL} millis, not by the requests.
+	 */
+	private void startCheck()
+	{
+		synchronized (StructureWatcher.class)
+		{
+			if (sesCheck == null)
+			{
+				ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory()
+				{
+					public Thread newThread(Runnable pRunnable)
+					{
+						Thread th = new Thread(pRunnable, "StructureWatcher");
+						th.setDaemon(true);
+
+						return th;
+					}
+				});
+				executor.setRemoveOnCancelPolicy(true);
+
+				sesCheck = executor;
+			}
+
+			sfCheck = sesCheck.scheduleWithFixedDelay(new Runnable()
+			{
+				public void run()
+				{
+					check();
+				}
+			}, 0, CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Checks the time stamp of the directory tree and changes the version if the time stamp was changed.
+	 */
+	private void check()
+	{
+		long lNewStamp;
+
+		try
+		{
+			lNewStamp = getDirectoryStamp(fiDirectory);
+		}
+		catch (Exception e)
+		{
+			//the next check will try again
+			LoggerFactory.getInstance(StructureWatcher.class).debug(e);
+
+			return;
+		}
+
+		synchronized (this)
+		{
+			if (!bStamped)
+			{
+				//first check -> nothing changed since creation
+				bStamped = true;
+			}
+			else if (lNewStamp != lStamp)
+			{
+				lVersion++;
+				lLastModified = System.currentTimeMillis();
+			}
+
+			lStamp = lNewStamp;
+		}
+	}
+
+	/**
+	 * Closes the watch service and stops the time stamp check.
+	 */
+	private synchronized void close()
+	{
+		bClosed = true;
+
+		CommonUtil.close(wsWatcher);
+
+		wsWatcher = null;
+
+		if (sfCheck != null)
+		{
+			sfCheck.cancel(false);
+
+			sfCheck = null;
+		}
+	}
+
+	/**
+	 * Registers the given directory and all sub directories for watching.
+	 * 
+	 * @param pPath the directory
+	 * @throws IOException if registration fails
+	 */
+	private void register(Path pPath) throws IOException
+	{
+		pPath.register(wsWatcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, 
+				       StandardWatchEventKinds.ENTRY_MODIFY);
+
+		File[] files = pPath.toFile().listFiles();
+
+		if (files != null)
+		{
+			for (int i = 0; i < files.length; i++)
+			{
+				if (files[i].isDirectory())
+				{
+					register(files[i].toPath());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets a time stamp for the given directory and all files and sub directories. The time stamp 
+	 * changes if a file was created, changed or deleted.
+	 * 
+	 * @param pDirectory the directory
+	 * @return the time stamp
+	 */
+	private static long getDirectoryStamp(File pDirectory)
+	{
+		long lDirStamp = 31 * pDirectory.lastModified();
+
+		File[] files = pDirectory.listFiles();
+
+		if (files != null)
+		{
+			for (int i = 0; i < files.length; i++)
+			{
+				if (files[i].isDirectory())
+				{
+					lDirStamp = 31 * lDirStamp + getDirectoryStamp(files[i]);
+				}
+				else
+				{
+					//changed in place -> the directory time stamp doesn't change
+					lDirStamp = 31 * lDirStamp + files[i].lastModified();
+					lDirStamp = 31 * lDirStamp + files[i].length();
+				}
+			}
+		}
+
+		return lDirStamp;
+	}
+
+}	// StructureWatcher
@@ -0,0 +1,428 @@
+/*
+ * Copyright 2022 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.sibvisions.apps.help.services.util;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jvx.rad.util.TranslationMap;
+
+import com.sibvisions.util.log.LoggerFactory;
+import com.sibvisions.util.type.CommonUtil;
+
+/**
+ * The <code>TranslationCache</code> caches the translation of a help root for a specific language.
+ * The translation is a combination of the default translation, the language translation and the
+ * country specific translation, e.g. helptranslation.xml, helptranslation_de.xml and
+ * helptranslation_de_at.xml. Every translation file will be parsed once and again only if
+ * it was changed.
+ * 
+ * @author Ren Jahn
+ */
+public final class TranslationCache
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the minimum interval between two modification checks. */
+	private static final long CHECK_INTERVAL = 2000;
+
+	/** the maximum number of cached translations. */
+	private static final int MAX_CACHED_TRANSLATIONS = 256;
+
+	/** the base name of translation files. */
+	private static final String BASE_NAME = "/translation/helptranslation";
+
+	/** the extension of translation files. */
+	private static final String EXTENSION = "xml";
+
+	/** all cached translations. */
+	private static ConcurrentHashMap<String, TranslationCache> chmCache = new ConcurrentHashMap<String, TranslationCache>();
+
+	/** all parsed translation files. */
+	private static ConcurrentHashMap<File, TranslationFile> chmFiles = new ConcurrentHashMap<File, TranslationFile>();
+
+	/** the root directory. */
+	private File fiRootPath;
+
+	/** the requested language. */
+	private String sLanguage;
+
+	/** the translation files, from general to specific. */
+	private String[] sResourcePath;
+
+	/** the modification time stamps of the translation files. */
+	private long[] lLastModified;
+
+	/** the translation for clients. */
+	private volatile TranslationMap tmapTranslation;
+
+	/** the translation for translating entries. */
+	private volatile TranslationMap tmapTranslator;
+
+	/** the time of the last modification check. */
+	private long lLastCheck;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new instance of <code>TranslationCache</code>.
+	 * 
+	 * @param pRootPath the root directory
+	 * @param pLanguage the language code (lower case)
+	 */
+	private TranslationCache(File pRootPath, String pLanguage)
+	{
+		fiRootPath = pRootPath;
+		sLanguage = pLanguage;
+
+		int iPos = sLanguage.indexOf("_");
+
+		if (iPos > 0)
+		{
+			//e.g. de_AT -> de -> default
+			sResourcePath = new String[] {BASE_NAME + "." + EXTENSION,
+			                              BASE_NAME + "_" + sLanguage.substring(0, iPos) + "." + EXTENSION,
+			                              BASE_NAME + "_" + sLanguage + "." + EXTENSION};
+		}
+		else
+		{
+			sResourcePath = new String[] {BASE_NAME + "." + EXTENSION,
+			                              BASE_NAME + "_" + sLanguage + "." + EXTENSION};
+		}
+
+		lLastModified = new long[sResourcePath.length];
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Gets the cache for the given root directory and language. The cache will be created, if necessary.
+	 * 
+	 * @param pRootPath the root directory or <code>null</code> if no root directory is available
+	 * @param pLanguage the language code e.g. en, de, de_AT
+	 * @return the cache, with an empty translation if no root directory is available
+	 */
+	public static TranslationCache getInstance(File pRootPath, String pLanguage)
+	{
+		String sLang = pLanguage.toLowerCase();
+
+		if (pRootPath == null)
+		{
+			//e.g. war not unpacked -> no translation files
+			TranslationCache cache = new TranslationCache(null, sLang);
+			cache.validate();
+
+			return cache;
+		}
+
+		String sKey = pRootPath.getPath() + "|" + sLang;
+
+		TranslationCache cache = chmCache.get(sKey);
+
+		if (cache == null)
+		{
+			synchronized (chmCache)
+			{
+				cache = chmCache.get(sKey);
+
+				if (cache == null)
+				{
+					//the language is a request parameter -> don't grow without limits
+					if (chmCache.size() >= MAX_CACHED_TRANSLATIONS)
+					{
+						chmCache.clear();
+					}
+
+					cache = new TranslationCache(pRootPath, sLang);
+
+					chmCache.put(sKey, cache);
+				}
+			}
+		}
+
+		cache.validate();
+
+		return cache;
+	}
+
+	/**
+	 * Gets the translation for clients. The translation is shared and mustn't be used for
+	 * translating because untranslated texts would be added.
+	 * 
+	 * @return the translation
+	 * @see #getTranslator()
+	 */
+	public TranslationMap getTranslation()
+	{
+		return tmapTranslation;
+	}
+
+	/**
+	 * Gets the translation for translating entries. The translation is shared and
+	 * stays the same instance until a translation file was changed.
+	 * 
+	 * @return the translation
+	 */
+	public TranslationMap getTranslator()
+	{
+		return tmapTranslator;
+	}
+
+	/**
+	 * Gets the last modification of all translation files.
+	 * 
+	 * @return the time stamp of the last modified file or <code>0</code> if no file was found
+	 */
+	public synchronized long lastModified()
+	{
+		long lModified = 0;
+
+		for (int i = 0; i < lLastModified.length; i++)
+		{
+			lModified = Math.max(lModified, lLastModified[i]);
+		}
+
+		return lModified;
+	}
+
+	/**
+	 * Gets the version of the translation. The version changes if a translation file was changed,
+	 * created or deleted, and is the same after a restart if no file was changed.
+	 * 
+	 * @return the version
+	 */
+	public synchronized long getVersion()
+	{
+		long lVersion = 17;
+
+		for (int i = 0; i < lLastModified.length; i++)
+		{
+			lVersion = 31 * lVersion + lLastModified[i];
+		}
+
+		return lVersion;
+	}
+
+	/**
+	 * Checks whether a translation file was changed, created or deleted and reloads the translation
+	 * if necessary.
+	 */
+	private synchronized void validate()
+	{
+		long lNow = System.currentTimeMillis();
+
+		if (tmapTranslation != null && lLastCheck + CHECK_INTERVAL > lNow)
+		{
+			return;
+		}
+
+		lLastCheck = lNow;
+
+		boolean bChanged = tmapTranslation == null;
+
+		long lModified;
+
+		for (int i = 0; i < sResourcePath.length; i++)
+		{
+			//0 if file doesn't exist
+			lModified = fiRootPath != null ? new File(fiRootPath, sResourcePath[i]).lastModified() : 0;
+
+			if (lModified != lLastModified[i])
+			{
+				lLastModified[i] = lModified;
+
+				bChanged = true;
+			}
+		}
+
+		if (bChanged)
+		{
+			Properties prop = new Properties();
+
+			String sLoadedPath = null;
+
+			boolean bSpecific = false;
+
+			Map<String, String> mpTranslation;
+
+			for (int i = 0; i < sResourcePath.length; i++)
+			{
+				if (lLastModified[i] != 0)
+				{
+					mpTranslation = getTranslationFile(new File(fiRootPath, sResourcePath[i]));
+
+					if (mpTranslation != null)
+					{
+						prop.putAll(mpTranslation);
+
+						sLoadedPath = sResourcePath[i];
+
+						bSpecific = i == sResourcePath.length - 1;
+					}
+				}
+			}
+
+			String sLoadedLanguage = sLanguage;
+
+			if (!bSpecific)
+			{
+				int iPos = sLanguage.indexOf("_");
+
+				//if no specific language_country file is available -> only use language
+				if (iPos > 0)
+				{
+					sLoadedLanguage = sLanguage.substring(0, iPos);
+				}
+			}
+
+			tmapTranslation = createTranslationMap(prop, sLoadedPath, sLoadedLanguage);
+			tmapTranslator = createTranslationMap(prop, sLoadedPath, sLoadedLanguage);
+		}
+	}
+
+	/**
+	 * Creates a new translation map.
+	 * 
+	 * @param pProperties the translation
+	 * @param pResourcePath the resource path of the most specific file
+	 * @param pLanguage the language
+	 * @return the translation map
+	 */
+	private static TranslationMap createTranslationMap(Properties pProperties, String pResourcePath, String pLanguage)
+	{
+		TranslationMap map = new TranslationMap();
+
+		if (!pProperties.isEmpty())
+		{
+			map.setAsProperties(pProperties);
+		}
+
+		if (pResourcePath != null)
+		{
+			map.setResourcePath(pResourcePath);
+		}
+
+		map.setLanguage(pLanguage);
+
+		return map;
+	}
+
+	/**
+	 * Gets the translation of a translation file. The file will be parsed only if it was changed.
+	 * 
+	 * @param pFile the translation file
+	 * @return the translation (unmodifiable) or <code>null</code> if the file couldn't be loaded
+	 */
+	private static Map<String, String> getTranslationFile(File pFile)
+	{
+		long lModified = pFile.lastModified();
+
+		TranslationFile tfile = chmFiles.get(pFile);
+
+		if (tfile == null || tfile.lLastModified != lModified)
+		{
+			tfile = new TranslationFile(lModified, loadTranslation(pFile));
+
+			chmFiles.put(pFile, tfile);
+		}
+
+		return tfile.mpTranslation;
+	}
+
+	/**
+	 * Loads a translation resource.
+	 * 
+	 * @param pFile the language resource name
+	 * @return the translation (unmodifiable) or <code>null</code> if the file was not found
+	 */
+	private static Map<String, String> loadTranslation(File pFile)
+	{
+		InputStream isTranslation = null;
+
+		try
+		{
+			isTranslation = new FileInputStream(pFile);
+
+			Properties properties = new Properties();
+
+			properties.loadFromXML(new BufferedInputStream(isTranslation));
+
+			HashMap<String, String> hmpTranslation = new HashMap<String, String>();
+
+			for (String sKey : properties.stringPropertyNames())
+			{
+				hmpTranslation.put(sKey, properties.getProperty(sKey));
+			}
+
+			return Collections.unmodifiableMap(hmpTranslation);
+		}
+		catch (Exception e)
+		{
+			LoggerFactory.getInstance(TranslationCache.class).debug("Error loading translation", e);
+		}
+		finally
+		{
+			CommonUtil.close(isTranslation);
+		}
+
+		return null;
+	}
+
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+
+	/**
+	 * The <code>TranslationFile</code> is a parsed translation file.
+	 * 
+	 * @author Ren Jahn
+	 */
+	private static final class TranslationFile
+	{
+		/** the modification time stamp of the file. */
+		private long lLastModified;
+
+		/** the translation or <code>null</code> if the file couldn't be loaded. */
+		private Map<String, String> mpTranslation;
+
+		/**
+		 * Creates a new instance of <code>TranslationFile</code>.
+		 * 
+		 * @param pLastModified the modification time stamp of the file
+		 * @param pTranslation the translation
+		 */
+		private TranslationFile(long pLastModified, Map<String, String> pTranslation)
+		{
+			lLastModified = pLastModified;
+			mpTranslation = pTranslation;
+		}
+
+	}	// TranslationFile
+
+}	// TranslationCache
@@ -23,8 +23,13 @@ import jvx.rad.util.TranslationMap;
 import org.junit.Assert;
 import org.junit.Test;
 import org.restlet.data.ClientInfo;
+import org.restlet.data.Encoding;
+import org.restlet.data.Preference;
+import org.restlet.data.Status;
+import org.restlet.data.Tag;
 import org.restlet.representation.Representation;
 import org.restlet.resource.ClientResource;
+import org.restlet.resource.ResourceException;
 
 import com.sibvisions.rad.server.http.rest.JSONUtil;
 import com.sibvisions.util.type.CodecUtil;
@@ -130,6 +135,38 @@ public class TestServices
 		return cres;
 		
 	}
+	
+	/**
+	 * Searches and waits for the index, if the index is not available.
+	 * 
+	 * @param pParameter additional URL parameters (key=value)
+	 * @return the search result
+	 * @throws Exception if search fails or the index is not available after 30 seconds
+	 */
+	protected Object search(String... pParameter) throws Exception
+	{
+		long lStart = System.currentTimeMillis();
+		
+		while (true)
+		{
+			ClientResource cres = createRequest("search", pParameter);
+			
+			try
+			{
+				return JSONUtil.getObject(cres.get());
+			}
+			catch (ResourceException re)
+			{
+				if (!Status.SERVER_ERROR_SERVICE_UNAVAILABLE.equals(re.getStatus())
+					|| lStart + 30000 < System.currentTimeMillis())
+				{
+					throw re;
+				}
+				
+				Thread.sleep(500);
+			}
+		}
+	}
 
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 	// Tests
@@ -169,6 +206,61 @@ public class TestServices
 		Assert.assertTrue(((String)(((Map)((List)obj).get(1)).get("icon"))).startsWith("/multihelp/help_en/images/"));
 	}
 	
+	/**
+	 * Tests, getting subtrees of help contents.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	@SuppressWarnings("rawtypes")
+	public void testGetSubtree() throws Exception
+	{
+		List liAll = (List)JSONUtil.getObject(createRequest("content", "path=/").get());
+		
+		//root entry and first level
+		List liRoot = (List)JSONUtil.getObject(createRequest("content", "path=/", "depth=1").get());
+		
+		Assert.assertTrue(liRoot.size() < liAll.size());
+		Assert.assertEquals("HOME", ((Map)liRoot.get(0)).get("name"));
+		
+		Object oFolderID = null;
+		
+		for (int i = 1; i < liRoot.size(); i++)
+		{
+			Assert.assertEquals(Integer.valueOf(-1), ((Map)liRoot.get(i)).get("parentID"));
+			
+			if (oFolderID == null && "folder".equals(((Map)liRoot.get(i)).get("type")))
+			{
+				oFolderID = ((Map)liRoot.get(i)).get("id");
+			}
+		}
+		
+		Assert.assertNotNull(oFolderID);
+		
+		List liChildren = (List)JSONUtil.getObject(createRequest("content", "path=/", "parent=" + oFolderID).get());
+		
+		Assert.assertFalse(liChildren.isEmpty());
+		
+		for (int i = 0; i < liChildren.size(); i++)
+		{
+			Assert.assertEquals(oFolderID, ((Map)liChildren.get(i)).get("parentID"));
+		}
+		
+		//all levels
+		Assert.assertEquals(liAll.size(), ((List)JSONUtil.getObject(createRequest("content", "path=/", "depth=0").get())).size());
+		
+		try
+		{
+			createRequest("content", "path=/", "parent=unknown").get();
+			
+			Assert.fail("Parent found");
+		}
+		catch (ResourceException re)
+		{
+			Assert.assertEquals(Status.CLIENT_ERROR_NOT_FOUND, re.getStatus());
+		}
+	}
+	
 	/**
 	 * Tests, search contents.
 	 * 
@@ -179,21 +271,13 @@ public class TestServices
 	{
 		JSONUtil.setDumpStreamEnabled(true);
 		
-		ClientResource cres = createRequest("search", "path=/", "term=shows");
-		
-		Representation rep = cres.get();
-		
-		Object obj = JSONUtil.getObject(rep);
+		Object obj = search("path=/", "term=shows");
 		
 		Assert.assertNotNull(obj);
 		Assert.assertEquals(2, ((List<?>)obj).size());
 		
 
-		cres = createRequest("search", "path=/multihelp/help_en", "term=shows");
-		
-		rep = cres.get();
-		
-		obj = JSONUtil.getObject(rep);
+		obj = search("path=/multihelp/help_en", "term=shows");
 		
 		Assert.assertNotNull(obj);
 		Assert.assertEquals(2, ((List<?>)obj).size());
@@ -230,4 +314,80 @@ public class TestServices
 		Assert.assertTrue(tmap.getAsProperties().isEmpty());
 	}
 	
+	/**
+	 * Tests, conditional requests with the entity tag of a previous response.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	public void testNotModified() throws Exception
+	{
+		ClientResource cres = createRequest("content", "path=/");
+		
+		Representation rep = cres.get();
+		
+		Tag tag = rep.getTag();
+		
+		Assert.assertNotNull(tag);
+		Assert.assertFalse(tag.isWeak());
+		Assert.assertNotNull(rep.getModificationDate());
+		
+		rep.exhaust();
+		
+		cres = createRequest("content", "path=/");
+		cres.getConditions().getNoneMatch().add(tag);
+		
+		cres.get();
+		
+		Assert.assertEquals(Status.REDIRECTION_NOT_MODIFIED, cres.getStatus());
+		
+		cres = createRequest("translation", "path=/");
+		
+		rep = cres.get();
+		
+		tag = rep.getTag();
+		
+		Assert.assertNotNull(tag);
+		
+		rep.exhaust();
+		
+		cres = createRequest("translation", "path=/", "language=en");
+		cres.getConditions().getNoneMatch().add(tag);
+		
+		//other language -> other version
+		cres.get();
+		
+		Assert.assertEquals(Status.SUCCESS_OK, cres.getStatus());
+	}
+	
+	/**
+	 * Tests, compressed responses.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	public void testCompression() throws Exception
+	{
+		ClientResource cres = createRequest("content", "path=/");
+		cres.getClientInfo().getAcceptedEncodings().add(new Preference<Encoding>(Encoding.GZIP));
+		
+		Representation rep = cres.get();
+		
+		Assert.assertTrue(rep.getEncodings().contains(Encoding.GZIP));
+		Assert.assertTrue(rep.getTag().getName().endsWith("-gzip"));
+		
+		Tag tag = rep.getTag();
+		
+		rep.exhaust();
+		
+		//the encoding of the tag will be ignored
+		cres = createRequest("content", "path=/");
+		cres.getClientInfo().getAcceptedEncodings().add(new Preference<Encoding>(Encoding.GZIP));
+		cres.getConditions().getNoneMatch().add(tag);
+		
+		cres.get();
+		
+		Assert.assertEquals(Status.REDIRECTION_NOT_MODIFIED, cres.getStatus());
+	}
+	
 }
@@ -0,0 +1,769 @@
+/*
+ * Copyright 2022 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.sibvisions.apps.help.services.util;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+/**
+ * The <code>HelpCorpusGenerator</code> creates synthetic help structures for benchmarks and load tests.
+ * The structure contains folders with sort prefixes, pages with quick-links, names with special 
+ * characters, HTML pages, PDF documents, <code>.images</code> folders and folder index pages. The 
+ * translation files contain all names of the structure.
+ * <p>
+ * The same settings and the same seed always create the same structure.
+ * <p>
+ * Usage: <code>HelpCorpusGenerator directory [files] [depth] [folders per folder] [files per folder] [seed]</code>
+ * 
+ * @author Ren Jahn
+ */
+public class HelpCorpusGenerator
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the syllables for creating words. */
+	static final String[] SYLLABLES = new String[] {"con", "fig", "ura", "tion", "dat", "ex", "port", "men",
+			                                        "ment", "sea", "rch", "in", "dex", "help", "pa", "ge",
+			                                        "ta", "ble", "lo", "gin", "user", "ro", "le", "ed"};
+	
+	/** the names with special characters. */
+	private static final String[] SPECIAL_NAMES = new String[] {"\u00dcbersicht", "Gr\u00f6\u00dfe", "Stra\u00dfe", "Caf\u00e9", 
+			                                                    "Preise \u20ac", "Fragen & Antworten", "\u00e4lapal\u00f6ma"};
+	
+	/** the random generator. */
+	private Random random;
+	
+	/** the created files (HTML pages and PDF documents). */
+	private List<File> liFiles = new ArrayList<File>();
+	
+	/** the names of all entries and their translation. */
+	private Map<String, String> mpNames = new LinkedHashMap<String, String>();
+	
+	/** the languages of the translation files. */
+	private String[] sLanguages = new String[] {"de"};
+	
+	/** the maximum number of files. */
+	private int iMaxFiles = 1000;
+	
+	/** the depth of the folder hierarchy. */
+	private int iDepth = 3;
+	
+	/** the number of sub folders per folder. */
+	private int iFolders = 10;
+	
+	/** the number of files per folder. */
+	private int iFilesPerFolder = 20;
+	
+	/** the number of words per page. */
+	private int iWords = 200;
+	
+	/** the number of pages per PDF document. */
+	private int iPdfPages = 2;
+	
+	/** the probability of sort prefixes. */
+	private double dSortPrefix = 0.8;
+	
+	/** the probability of quick-links. */
+	private double dQuickLink = 0.1;
+	
+	/** the probability of names with special characters. */
+	private double dSpecialName = 0.1;
+	
+	/** the probability of PDF documents. */
+	private double dPdf = 0.05;
+	
+	/** the probability of .images folders. */
+	private double dImages = 0.3;
+	
+	/** the probability of folder index pages. */
+	private double dIndex = 0.3;
+	
+	/** the seed of the random generator. */
+	private long lSeed = 4711;
+	
+	/** the number of created names. */
+	private int iNames;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a help structure.
+	 * 
+	 * @param pArgs the directory, the number of files, the depth, the folders per folder, the files per folder and the seed
+	 * @throws Exception if creating the structure fails
+	 */
+	public static void main(String[] pArgs) throws Exception
+	{
+		if (pArgs.length == 0)
+		{
+			System.out.println("Usage: HelpCorpusGenerator directory [files] [depth] [folders per folder] [files per folder] [seed]");
+			
+			return;
+		}
+		
+		HelpCorpusGenerator generator = new HelpCorpusGenerator();
+		
+		if (pArgs.length > 1)
+		{
+			generator.setMaxFiles(Integer.parseInt(pArgs[1]));
+		}
+		
+		if (pArgs.length > 2)
+		{
+			generator.setDepth(Integer.parseInt(pArgs[2]));
+		}
+		
+		if (pArgs.length > 3)
+		{
+			generator.setFoldersPerFolder(Integer.parseInt(pArgs[3]));
+		}
+		
+		if (pArgs.length > 4)
+		{
+			generator.setFilesPerFolder(Integer.parseInt(pArgs[4]));
+		}
+		
+		if (pArgs.length > 5)
+		{
+			generator.setSeed(Long.parseLong(pArgs[5]));
+		}
+		
+		long lStart = System.currentTimeMillis();
+		
+		generator.generate(new File(pArgs[0]));
+		
+		System.out.println(generator.getFiles().size() + " files, " + generator.getNames().size() + " names, " + 
+				           (System.currentTimeMillis() - lStart) + " ms");
+	}
+	
+	/**
+	 * Creates the help structure in the given directory. The directory will contain the 
+	 * <code>structure</code> and the <code>translation</code> directory.
+	 * 
+	 * @param pDirectory the root directory
+	 * @throws IOException if creating files fails
+	 */
+	public void generate(File pDirectory) throws IOException
+	{
+		random = new Random(lSeed);
+		
+		liFiles.clear();
+		mpNames.clear();
+		
+		iNames = 0;
+		
+		File fiStructure = new File(pDirectory, "structure");
+		fiStructure.mkdirs();
+		
+		writePage(new File(fiStructure, "index.html"), "Home");
+
+		//breadth-first, that all folders of a level are created before the next level
+		List<File> liFolders = new ArrayList<File>();
+		liFolders.add(fiStructure);
+		
+		List<Integer> liLevels = new ArrayList<Integer>();
+		liLevels.add(Integer.valueOf(0));
+		
+		for (int i = 0; i < liFolders.size() && liFiles.size() < iMaxFiles; i++)
+		{
+			File fiFolder = liFolders.get(i);
+			
+			int iLevel = liLevels.get(i).intValue();
+			
+			if (iLevel > 0)
+			{
+				createFiles(fiFolder);
+			}
+			
+			if (iLevel < iDepth)
+			{
+				for (int j = 0; j < iFolders; j++)
+				{
+					File fiSub = new File(fiFolder, createName(j, false, null));
+					fiSub.mkdirs();
+					
+					if (random.nextDouble() < dIndex)
+					{
+						writePage(new File(fiSub, "index.html"), fiSub.getName());
+					}
+					
+					liFolders.add(fiSub);
+					liLevels.add(Integer.valueOf(iLevel + 1));
+				}
+			}
+		}
+		
+		writeTranslation(new File(pDirectory, "translation"));
+	}
+	
+	/**
+	 * Creates the files of a folder.
+	 * 
+	 * @param pFolder the folder
+	 * @throws IOException if creating files fails
+	 */
+	private void createFiles(File pFolder) throws IOException
+	{
+		File fiImages = null;
+		
+		if (random.nextDouble() < dImages)
+		{
+			fiImages = new File(pFolder, ".images");
+			fiImages.mkdirs();
+		}
+		
+		for (int i = 0; i < iFilesPerFolder && liFiles.size() < iMaxFiles; i++)
+		{
+			File fiFile;
+			
+			if (random.nextDouble() < dPdf)
+			{
+				fiFile = new File(pFolder, createName(i, false, "pdf"));
+				
+				writePdf(fiFile);
+			}
+			else
+			{
+				String sName = createName(i, random.nextDouble() < dQuickLink, "html");
+				
+				fiFile = new File(pFolder, sName);
+				
+				writePage(fiFile, sName);
+				
+				if (fiImages != null)
+				{
+					writeImage(new File(fiImages, sName.substring(0, sName.length() - 5) + ".png"));
+				}
+			}
+			
+			liFiles.add(fiFile);
+		}
+	}
+	
+	/**
+	 * Creates the name of a folder or file. The name will be added to the translation.
+	 * 
+	 * @param pIndex the index of the entry in the folder
+	 * @param pQuickLink <code>true</code> to add a quick-link
+	 * @param pExtension the extension or <code>null</code> for folders
+	 * @return the file name
+	 */
+	private String createName(int pIndex, boolean pQuickLink, String pExtension)
+	{
+		String sName;
+		
+		if (random.nextDouble() < dSpecialName)
+		{
+			sName = SPECIAL_NAMES[random.nextInt(SPECIAL_NAMES.length)];
+		}
+		else
+		{
+			String sWord = createWord();
+			
+			sName = Character.toUpperCase(sWord.charAt(0)) + sWord.substring(1);
+		}
+		
+		//unique names, also without sort prefix
+		sName += " " + (iNames++);
+		
+		mpNames.put(sName, translate(sName));
+		
+		StringBuilder sb = new StringBuilder();
+		
+		if (random.nextDouble() < dSortPrefix)
+		{
+			sb.append(String.format("%02d_", Integer.valueOf(pIndex)));
+		}
+		
+		sb.append(sName);
+		
+		if (pQuickLink)
+		{
+			sb.append("$apps.help.screens.");
+			sb.append(sName.replaceAll("[^A-Za-z0-9]", ""));
+			sb.append("WorkScreen");
+		}
+		
+		if (pExtension != null)
+		{
+			sb.append('.');
+			sb.append(pExtension);
+		}
+		
+		return sb.toString();
+	}
+	
+	/**
+	 * Creates a word with 2 or 3 syllables.
+	 * 
+	 * @return the word
+	 */
+	private String createWord()
+	{
+		StringBuilder sb = new StringBuilder();
+		
+		for (int i = 0, cnt = 2 + random.nextInt(2); i < cnt; i++)
+		{
+			sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+		}
+		
+		return sb.toString();
+	}
+	
+	/**
+	 * Creates the text of a page.
+	 * 
+	 * @return the text
+	 */
+	private String createText()
+	{
+		StringBuilder sb = new StringBuilder();
+		
+		for (int i = 0; i < iWords; i++)
+		{
+			if (i > 0)
+			{
+				sb.append(' ');
+			}
+			
+			sb.append(createWord());
+		}
+		
+		return sb.toString();
+	}
+	
+	/**
+	 * Translates a name.
+	 * 
+	 * @param pName the name
+	 * @return the translation
+	 */
+	private String translate(String pName)
+	{
+		return pName.toUpperCase();
+	}
+	
+	/**
+	 * Writes a HTML page.
+	 * 
+	 * @param pFile the file
+	 * @param pTitle the title
+	 * @throws IOException if writing fails
+	 */
+	private void writePage(File pFile, String pTitle) throws IOException
+	{
+		Writer writer = new OutputStreamWriter(new FileOutputStream(pFile), "UTF-8");
+		
+		try
+		{
+			writer.write("<html><head><meta charset=\"UTF-8\"><title>");
+			writer.write(pTitle.replace("&", "&amp;"));
+			writer.write("</title></head><body><h1>");
+			writer.write(pTitle.replace("&", "&amp;"));
+			writer.write("</h1><p>");
+			writer.write(createText());
+			writer.write("</p></body></html>");
+		}
+		finally
+		{
+			writer.close();
+		}
+	}
+	
+	/**
+	 * Writes a PDF document.
+	 * 
+	 * @param pFile the file
+	 * @throws IOException if writing fails
+	 */
+	private void writePdf(File pFile) throws IOException
+	{
+		PDDocument document = new PDDocument();
+		
+		try
+		{
+			for (int i = 0; i < iPdfPages; i++)
+			{
+				PDPage page = new PDPage();
+				
+				document.addPage(page);
+				
+				PDPageContentStream stream = new PDPageContentStream(document, page);
+				
+				try
+				{
+					stream.beginText();
+					stream.setFont(PDType1Font.HELVETICA, 10);
+					stream.setLeading(12);
+					stream.newLineAtOffset(50, 740);
+					
+					String sText = createText();
+					
+					//one line per 80 characters
+					for (int j = 0; j < sText.length(); j += 80)
+					{
+						stream.showText(sText.substring(j, Math.min(sText.length(), j + 80)));
+						stream.newLine();
+					}
+					
+					stream.endText();
+				}
+				finally
+				{
+					stream.close();
+				}
+			}
+			
+			document.save(pFile);
+		}
+		finally
+		{
+			document.close();
+		}
+	}
+	
+	/**
+	 * Writes a small PNG image.
+	 * 
+	 * @param pFile the file
+	 * @throws IOException if writing fails
+	 */
+	private void writeImage(File pFile) throws IOException
+	{
+		BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+		
+		Graphics2D graphics = image.createGraphics();
+		
+		try
+		{
+			graphics.setColor(new Color(random.nextInt(0x1000000)));
+			graphics.fillRect(0, 0, 16, 16);
+		}
+		finally
+		{
+			graphics.dispose();
+		}
+		
+		ImageIO.write(image, "png", pFile);
+	}
+	
+	/**
+	 * Writes the translation files. The default translation is empty.
+	 * 
+	 * @param pDirectory the translation directory
+	 * @throws IOException if writing fails
+	 */
+	private void writeTranslation(File pDirectory) throws IOException
+	{
+		pDirectory.mkdirs();
+		
+		writeProperties(new File(pDirectory, "helptranslation.xml"), new Properties());
+		
+		Properties prop = new Properties();
+		prop.putAll(mpNames);
+		
+		for (int i = 0; i < sLanguages.length; i++)
+		{
+			writeProperties(new File(pDirectory, "helptranslation_" + sLanguages[i] + ".xml"), prop);
+		}
+	}
+	
+	/**
+	 * Writes properties as XML file.
+	 * 
+	 * @param pFile the file
+	 * @param pProperties the properties
+	 * @throws IOException if writing fails
+	 */
+	private static void writeProperties(File pFile, Properties pProperties) throws IOException
+	{
+		OutputStream os = new FileOutputStream(pFile);
+		
+		try
+		{
+			pProperties.storeToXML(os, null, "UTF-8");
+		}
+		finally
+		{
+			os.close();
+		}
+	}
+	
+	/**
+	 * Gets the created HTML pages and PDF documents, without index pages.
+	 * 
+	 * @return the files
+	 */
+	public List<File> getFiles()
+	{
+		return liFiles;
+	}
+	
+	/**
+	 * Gets the names of all created entries and their translation.
+	 * 
+	 * @return the names and translations
+	 */
+	public Map<String, String> getNames()
+	{
+		return mpNames;
+	}
+	
+	/**
+	 * Sets the maximum number of files. The creation stops if the maximum was reached.
+	 * 
+	 * @param pFiles the number of HTML pages and PDF documents
+	 */
+	public void setMaxFiles(int pFiles)
+	{
+		iMaxFiles = pFiles;
+	}
+	
+	/**
+	 * Gets the maximum number of files.
+	 * 
+	 * @return the number of HTML pages and PDF documents
+	 */
+	public int getMaxFiles()
+	{
+		return iMaxFiles;
+	}
+	
+	/**
+	 * Sets the depth of the folder hierarchy.
+	 * 
+	 * @param pDepth the depth
+	 */
+	public void setDepth(int pDepth)
+	{
+		iDepth = pDepth;
+	}
+	
+	/**
+	 * Gets the depth of the folder hierarchy.
+	 * 
+	 * @return the depth
+	 */
+	public int getDepth()
+	{
+		return iDepth;
+	}
+	
+	/**
+	 * Sets the number of sub folders per folder.
+	 * 
+	 * @param pFolders the number of folders
+	 */
+	public void setFoldersPerFolder(int pFolders)
+	{
+		iFolders = pFolders;
+	}
+	
+	/**
+	 * Gets the number of sub folders per folder.
+	 * 
+	 * @return the number of folders
+	 */
+	public int getFoldersPerFolder()
+	{
+		return iFolders;
+	}
+	
+	/**
+	 * Sets the number of files per folder.
+	 * 
+	 * @param pFiles the number of files
+	 */
+	public void setFilesPerFolder(int pFiles)
+	{
+		iFilesPerFolder = pFiles;
+	}
+	
+	/**
+	 * Gets the number of files per folder.
+	 * 
+	 * @return the number of files
+	 */
+	public int getFilesPerFolder()
+	{
+		return iFilesPerFolder;
+	}
+	
+	/**
+	 * Sets the number of words per page.
+	 * 
+	 * @param pWords the number of words
+	 */
+	public void setWords(int pWords)
+	{
+		iWords = pWords;
+	}
+	
+	/**
+	 * Gets the number of words per page.
+	 * 
+	 * @return the number of words
+	 */
+	public int getWords()
+	{
+		return iWords;
+	}
+	
+	/**
+	 * Sets the number of pages per PDF document.
+	 * 
+	 * @param pPages the number of pages
+	 */
+	public void setPdfPages(int pPages)
+	{
+		iPdfPages = pPages;
+	}
+	
+	/**
+	 * Gets the number of pages per PDF document.
+	 * 
+	 * @return the number of pages
+	 */
+	public int getPdfPages()
+	{
+		return iPdfPages;
+	}
+	
+	/**
+	 * Sets the probability of sort prefixes, e.g. <code>01_</code>.
+	 * 
+	 * @param pProbability the probability (0 - 1)
+	 */
+	public void setSortPrefixProbability(double pProbability)
+	{
+		dSortPrefix = pProbability;
+	}
+	
+	/**
+	 * Sets the probability of quick-links, e.g. <code>$apps.help.screens.PageWorkScreen</code>.
+	 * 
+	 * @param pProbability the probability (0 - 1)
+	 */
+	public void setQuickLinkProbability(double pProbability)
+	{
+		dQuickLink = pProbability;
+	}
+	
+	/**
+	 * Sets the probability of names with special characters.
+	 * 
+	 * @param pProbability the probability (0 - 1)
+	 */
+	public void setSpecialNameProbability(double pProbability)
+	{
+		dSpecialName = pProbability;
+	}
+	
+	/**
+	 * Sets the probability of PDF documents instead of HTML pages.
+	 * 
+	 * @param pProbability the probability (0 - 1)
+	 */
+	public void setPdfProbability(double pProbability)
+	{
+		dPdf = pProbability;
+	}
+	
+	/**
+	 * Sets the probability of <code>.images</code> folders, with one image per HTML page.
+	 * 
+	 * @param pProbability the probability (0 - 1)
+	 */
+	public void setImagesProbability(double pProbability)
+	{
+		dImages = pProbability;
+	}
+	
+	/**
+	 * Sets the probability of folder index pages.
+	 * 
+	 * @param pProbability the probability (0 - 1)
+	 */
+	public void setIndexProbability(double pProbability)
+	{
+		dIndex = pProbability;
+	}
+	
+	/**
+	 * Sets the languages of the translation files.
+	 * 
+	 * @param pLanguages the language codes
+	 */
+	public void setLanguages(String... pLanguages)
+	{
+		sLanguages = pLanguages;
+	}
+	
+	/**
+	 * Gets the languages of the translation files.
+	 * 
+	 * @return the language codes
+	 */
+	public String[] getLanguages()
+	{
+		return sLanguages;
+	}
+	
+	/**
+	 * Sets the seed of the random generator.
+	 * 
+	 * @param pSeed the seed
+	 */
+	public void setSeed(long pSeed)
+	{
+		lSeed = pSeed;
+	}
+	
+	/**
+	 * Gets the seed of the random generator.
+	 * 
+	 * @return the seed
+	 */
+	public long getSeed()
+	{
+		return lSeed;
+	}
+	
+}	// HelpCorpusGenerator
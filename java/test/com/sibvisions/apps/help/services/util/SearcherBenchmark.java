@@ -0,0 +1,205 @@
+/*
+ * Copyright 2022 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.sibvisions.apps.help.services.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Random;
+
+import com.sibvisions.util.type.FileUtil;
+
+/**
+ * The <code>SearcherBenchmark</code> compares the search latency of the infix fields with
+ * the search latency of leading wildcards. The benchmark creates a synthetic help structure
+ * in the temp directory.
+ * <p>
+ * Usage: <code>SearcherBenchmark [files] [words per file] [iterations]</code>
+ * 
+ * @author Ren Jahn
+ */
+public final class SearcherBenchmark
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the searched texts. */
+	private static final String[] SEARCH = new String[] {"a", "ex", "dat", "ment", "config", "xyzq"};
+	
+	/** the syllables for creating words. */
+	private static final String[] SYLLABLES = new String[] {"con", "fig", "ura", "tion", "dat", "ex", "port", "men",
+			                                                "ment", "sea", "rch", "in", "dex", "help", "pa", "ge",
+			                                                "ta", "ble", "lo", "gin", "user", "ro", "le", "ed"};
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Invisible constructor because <code>SearcherBenchmark</code> is a utility class.
+	 */
+	private SearcherBenchmark()
+	{
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Starts the benchmark.
+	 * 
+	 * @param pArgs the number of files, the number of words per file and the number of iterations
+	 * @throws Exception if the benchmark fails
+	 */
+	public static void main(String[] pArgs) throws Exception
+	{
+		int iFiles = pArgs.length > 0 ? Integer.parseInt(pArgs[0]) : 2000;
+		int iWords = pArgs.length > 1 ? Integer.parseInt(pArgs[1]) : 500;
+		int iIterations = pArgs.length > 2 ? Integer.parseInt(pArgs[2]) : 200;
+		
+		File fiStructure = new File(new File(System.getProperty("java.io.tmpdir")), "searcherBenchmark");
+		
+		FileUtil.delete(fiStructure);
+		
+		createStructure(fiStructure, iFiles, iWords);
+		
+		Searcher searcher = new Searcher("searcherBenchmark");
+		searcher.setDirectory(fiStructure);
+		
+		try
+		{
+			long lStart = System.nanoTime();
+			
+			searcher.initialize();
+			
+			System.out.println("Index: " + iFiles + " files, " + iWords + " words per file, " + (System.nanoTime() - lStart) / 1000000 + " ms");
+			System.out.println();
+			System.out.println(String.format("%-10s %8s %8s %14s %14s", "search", "infix", "wildcard", "infix (us)", "wildcard (us)"));
+	
+			for (int i = 0; i < SEARCH.length; i++)
+			{
+				searcher.setInfixSearchEnabled(true);
+				
+				int iInfixHits = searcher.searchIndex(SEARCH[i], Integer.MAX_VALUE).size();
+				long lInfix = measure(searcher, SEARCH[i], iIterations);
+				
+				searcher.setInfixSearchEnabled(false);
+				
+				int iWildcardHits = searcher.searchIndex(SEARCH[i], Integer.MAX_VALUE).size();
+				long lWildcard = measure(searcher, SEARCH[i], iIterations);
+				
+				System.out.println(String.format("%-10s %8d %8d %14d %14d", SEARCH[i], Integer.valueOf(iInfixHits), Integer.valueOf(iWildcardHits), 
+						                                                      Long.valueOf(lInfix), Long.valueOf(lWildcard)));
+			}
+		}
+		finally
+		{
+			searcher.deleteIndex();
+			
+			FileUtil.delete(fiStructure);
+		}
+	}
+	
+	/**
+	 * Measures the average search time.
+	 * 
+	 * @param pSearcher the searcher
+	 * @param pSearch the search text
+	 * @param pIterations the number of searches
+	 * @return the average search time in microseconds
+	 * @throws Exception if search fails
+	 */
+	private static long measure(Searcher pSearcher, String pSearch, int pIterations) throws Exception
+	{
+		//warm-up
+		for (int i = 0; i < pIterations / 10; i++)
+		{
+			pSearcher.searchIndex(pSearch, 100);
+		}
+		
+		long lStart = System.nanoTime();
+		
+		for (int i = 0; i < pIterations; i++)
+		{
+			pSearcher.searchIndex(pSearch, 100);
+		}
+		
+		return (System.nanoTime() - lStart) / pIterations / 1000;
+	}
+	
+	/**
+	 * Creates a help structure with random words.
+	 * 
+	 * @param pDirectory the structure directory
+	 * @param pFiles the number of files
+	 * @param pWords the number of words per file
+	 * @throws Exception if creating files fails
+	 */
+	private static void createStructure(File pDirectory, int pFiles, int pWords) throws Exception
+	{
+		Random random = new Random(4711);
+		
+		StringBuilder sbText = new StringBuilder();
+		
+		File fiFolder = null;
+		
+		for (int i = 0; i < pFiles; i++)
+		{
+			if (i % 100 == 0)
+			{
+				fiFolder = new File(pDirectory, String.format("%02d_Folder%d", Integer.valueOf(i / 100), Integer.valueOf(i / 100)));
+				fiFolder.mkdirs();
+			}
+			
+			sbText.setLength(0);
+			sbText.append("<html><body>");
+			
+			for (int j = 0; j < pWords; j++)
+			{
+				sbText.append(' ');
+				
+				//2 or 3 syllables per word
+				for (int k = 0, cnt = 2 + random.nextInt(2); k < cnt; k++)
+				{
+					sbText.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+				}
+				
+				//unique words increase the term dictionary
+				if (random.nextInt(4) == 0)
+				{
+					sbText.append(random.nextInt(100000));
+				}
+			}
+			
+			sbText.append("</body></html>");
+			
+			Writer writer = new OutputStreamWriter(new FileOutputStream(new File(fiFolder, String.format("%04d_Page%d.html", Integer.valueOf(i), Integer.valueOf(i)))), "UTF-8");
+			
+			try
+			{
+				writer.write(sbText.toString());
+			}
+			finally
+			{
+				writer.close();
+			}
+		}
+	}
+	
+}	// SearcherBenchmark
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2022 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.sibvisions.apps.help.services.util;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import com.sibvisions.util.type.FileUtil;
+
+/**
+ * The <code>ServiceBenchmark</code> measures the hot paths of the services: reading the help tree 
+ * with {@link EntryHelper#search()}, creating file entries, searching the index and loading 
+ * translations. The benchmark creates synthetic help structures of different sizes with the 
+ * {@link HelpCorpusGenerator} and reports the throughput, the average time and the allocated bytes 
+ * per operation.
+ * <p>
+ * The searches are measured cold, with a different search text for every operation, and warm, with
+ * the same search text. The cold translation loading parses the changed translation files again.
+ * <p>
+ * Usage: <code>ServiceBenchmark [sizes, e.g. 1000,10000,100000] [warm-up ms] [measure ms]</code>
+ * 
+ * @author Ren Jahn
+ */
+public final class ServiceBenchmark
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the thread bean for measuring allocations. */
+	private static ThreadMXBean thread = ManagementFactory.getThreadMXBean();
+	
+	/** the result, avoids dead code elimination. */
+	private static long lResult;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Invisible constructor because <code>ServiceBenchmark</code> is a utility class.
+	 */
+	private ServiceBenchmark()
+	{
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Starts the benchmark.
+	 * 
+	 * @param pArgs the sizes of the help structures, the warm-up time and the measurement time
+	 * @throws Exception if the benchmark fails
+	 */
+	public static void main(String[] pArgs) throws Exception
+	{
+		String[] sSizes = (pArgs.length > 0 ? pArgs[0] : "1000,10000,100000").split(",");
+		long lWarmup = pArgs.length > 1 ? Long.parseLong(pArgs[1]) : 2000;
+		long lMeasure = pArgs.length > 2 ? Long.parseLong(pArgs[2]) : 5000;
+		
+		System.out.println(String.format("%-22s %8s %12s %12s %14s", "benchmark", "entries", "ops/s", "avg (us)", "alloc (B/op)"));
+		
+		for (int i = 0; i < sSizes.length; i++)
+		{
+			benchmark(Integer.parseInt(sSizes[i].trim()), lWarmup, lMeasure);
+		}
+	}
+	
+	/**
+	 * Runs all benchmarks with a help structure of the given size.
+	 * 
+	 * @param pSize the number of files
+	 * @param pWarmup the warm-up time in milliseconds
+	 * @param pMeasure the measurement time in milliseconds
+	 * @throws Exception if the benchmark fails
+	 */
+	private static void benchmark(int pSize, long pWarmup, long pMeasure) throws Exception
+	{
+		File fiRoot = new File(new File(System.getProperty("java.io.tmpdir")), "serviceBenchmark" + pSize);
+		
+		FileUtil.delete(fiRoot);
+		
+		HelpCorpusGenerator generator = new HelpCorpusGenerator();
+		generator.setMaxFiles(pSize);
+		generator.setDepth(4);
+		generator.setFoldersPerFolder(10);
+		generator.setFilesPerFolder(50);
+		generator.setWords(100);
+		generator.generate(fiRoot);
+		
+		final List<File> liFiles = generator.getFiles();
+		
+		final File fiRootPath = fiRoot.getCanonicalFile();
+		
+		final Config config = new Config(fiRootPath, new File(fiRootPath, "structure"), "");
+		
+		final Searcher searcher = new Searcher("serviceBenchmark" + pSize);
+		searcher.setDirectory(config.getStructurePath());
+		searcher.setConfig(config);
+		
+		try
+		{
+			searcher.initialize();
+			
+			while (!searcher.isIndexCreated())
+			{
+				Thread.sleep(50);
+			}
+			
+			measure("EntryHelper.search", pSize, pWarmup, pMeasure, new Operation()
+			{
+				public long run(int pIndex) throws Exception
+				{
+					EntryHelper helper = new EntryHelper(config);
+					helper.setTranslation(TranslationCache.getInstance(fiRootPath, "de").getTranslator());
+					
+					return helper.search().size();
+				}
+			});
+			
+			final EntryHelper helper = new EntryHelper(config);
+			helper.setTranslation(TranslationCache.getInstance(fiRootPath, "de").getTranslator());
+			
+			measure("createFileEntry", pSize, pWarmup, pMeasure, new Operation()
+			{
+				public long run(int pIndex) throws Exception
+				{
+					return helper.createFileEntry(liFiles.get(pIndex % liFiles.size())).size();
+				}
+			});
+			
+			measure("searchIndex (cold)", pSize, pWarmup, pMeasure, new Operation()
+			{
+				public long run(int pIndex) throws Exception
+				{
+					return searcher.searchIndex(createSearch(pIndex), 100).size();
+				}
+			});
+			
+			measure("searchIndex (warm)", pSize, pWarmup, pMeasure, new Operation()
+			{
+				public long run(int pIndex) throws Exception
+				{
+					return searcher.searchIndex("config", 100).size();
+				}
+			});
+			
+			measure("translation (cold)", pSize, pWarmup, pMeasure, new Operation()
+			{
+				public long run(int pIndex) throws Exception
+				{
+					//a new modification time and a new language forces parsing the files again
+					new File(fiRootPath, "translation/helptranslation_de.xml").setLastModified(1000000000000L + pIndex * 1000L);
+					
+					return TranslationCache.getInstance(fiRootPath, "de_" + pIndex).getTranslator().size();
+				}
+			});
+			
+			measure("translation (warm)", pSize, pWarmup, pMeasure, new Operation()
+			{
+				public long run(int pIndex) throws Exception
+				{
+					return TranslationCache.getInstance(fiRootPath, "de").getTranslator().size();
+				}
+			});
+		}
+		finally
+		{
+			searcher.deleteIndex();
+			
+			FileUtil.delete(fiRoot);
+		}
+	}
+	
+	/**
+	 * Measures an operation and prints the throughput, the average time and the allocated bytes.
+	 * 
+	 * @param pName the name of the benchmark
+	 * @param pSize the number of files
+	 * @param pWarmup the warm-up time in milliseconds
+	 * @param pMeasure the measurement time in milliseconds
+	 * @param pOperation the operation
+	 * @throws Exception if the operation fails
+	 */
+	private static void measure(String pName, int pSize, long pWarmup, long pMeasure, Operation pOperation) throws Exception
+	{
+		int iIndex = 0;
+		
+		long lEnd = System.nanoTime() + pWarmup * 1000000L;
+		
+		while (System.nanoTime() < lEnd)
+		{
+			lResult += pOperation.run(iIndex++);
+		}
+		
+		long lAllocated = getAllocatedBytes();
+		long lStart = System.nanoTime();
+		
+		lEnd = lStart + pMeasure * 1000000L;
+		
+		long lTime;
+		int iCount = 0;
+		
+		do
+		{
+			lResult += pOperation.run(iIndex++);
+			
+			iCount++;
+			
+			lTime = System.nanoTime();
+		}
+		while (lTime < lEnd);
+		
+		lTime -= lStart;
+		lAllocated = getAllocatedBytes() - lAllocated;
+		
+		System.out.println(String.format("%-22s %8d %12.1f %12.1f %14s", pName, Integer.valueOf(pSize), 
+				                         Double.valueOf(iCount * 1000000000.0 / lTime), 
+				                         Double.valueOf(lTime / 1000.0 / iCount),
+				                         lAllocated < 0 ? "n/a" : String.valueOf(lAllocated / iCount)));
+	}
+	
+	/**
+	 * Gets the number of bytes allocated by the current thread.
+	 * 
+	 * @return the allocated bytes or <code>-1</code> if the JVM doesn't support measuring allocations
+	 */
+	private static long getAllocatedBytes()
+	{
+		if (thread instanceof com.sun.management.ThreadMXBean)
+		{
+			return ((com.sun.management.ThreadMXBean)thread).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Creates a search text for the given operation. The texts repeat after 576 operations.
+	 * 
+	 * @param pIndex the index of the operation
+	 * @return the search text
+	 */
+	private static String createSearch(int pIndex)
+	{
+		return HelpCorpusGenerator.SYLLABLES[pIndex % HelpCorpusGenerator.SYLLABLES.length] + HelpCorpusGenerator.SYLLABLES[(pIndex / HelpCorpusGenerator.SYLLABLES.length) % HelpCorpusGenerator.SYLLABLES.length];
+	}
+	
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+
+	/**
+	 * The <code>Operation</code> is a measured operation.
+	 * 
+	 * @author Ren Jahn
+	 */
+	private abstract static class Operation
+	{
+		/**
+		 * Runs the operation once.
+		 * 
+		 * @param pIndex the index of the operation
+		 * @return any result of the operation
+		 * @throws Exception if the operation fails
+		 */
+		public abstract long run(int pIndex) throws Exception;
+		
+	}	// Operation
+	
+}	// ServiceBenchmark
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2022 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.sibvisions.apps.help.services.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.List;
+
+import jvx.rad.type.bean.IBean;
+import jvx.rad.util.TranslationMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sibvisions.util.type.FileUtil;
+
+/**
+ * The <code>TestEntryCache</code> class is the test class for {@link EntryCache}.
+ * 
+ * @author Ren Jahn
+ */
+public class TestEntryCache 
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Tests
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Tests reading the changes since a version.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	public void testChanges() throws Exception
+	{
+		File fiRoot = new File(new File(System.getProperty("java.io.tmpdir")), "testEntryCache" + System.currentTimeMillis());
+		
+		File fiStructure = new File(fiRoot, "structure");
+		
+		File fiFolder = new File(fiStructure, "01_Folder");
+		fiFolder.mkdirs();
+		
+		createFile(new File(fiFolder, "01_First.html"));
+		createFile(new File(fiFolder, "03_Third.html"));
+		createFile(new File(fiStructure, "Removed.html"));
+		
+		try
+		{
+			Config config = new Config(fiRoot.getCanonicalFile(), fiStructure.getCanonicalFile(), "");
+			
+			TranslationMap tmap = new TranslationMap();
+			
+			EntryCache cache = EntryCache.getInstance(config, "test");
+			
+			long lVersion = cache.getRevision(config, tmap);
+			
+			EntryChanges changes = cache.getChanges(config, tmap, lVersion);
+			
+			Assert.assertFalse(changes.isFull());
+			Assert.assertEquals(lVersion, changes.getVersion());
+			Assert.assertTrue(changes.getAdded().isEmpty());
+			
+			//unknown version
+			changes = cache.getChanges(config, tmap, 0);
+			
+			Assert.assertTrue(changes.isFull());
+			Assert.assertEquals(5, changes.getEntries().size());
+			
+			createFile(new File(fiFolder, "02_Second.html"));
+			FileUtil.delete(new File(fiStructure, "Removed.html"));
+			
+			long lStart = System.currentTimeMillis();
+			
+			//wait for the structure watcher
+			while (cache.getRevision(config, tmap) == lVersion && lStart + 10000 > System.currentTimeMillis())
+			{
+				Thread.sleep(100);
+			}
+			
+			changes = cache.getChanges(config, tmap, lVersion);
+			
+			Assert.assertFalse(changes.isFull());
+			Assert.assertTrue(changes.getVersion() > lVersion);
+			Assert.assertEquals(1, changes.getAdded().size());
+			Assert.assertEquals("Second", changes.getAdded().get(0).get("name"));
+			Assert.assertEquals(Integer.valueOf(1), changes.getAdded().get(0).get("index"));
+			Assert.assertTrue(changes.getChanged().isEmpty());
+			Assert.assertEquals(1, changes.getRemoved().size());
+			Assert.assertEquals("Removed", changes.getRemoved().get(0).get("name"));
+			
+			//the cached entries are unchanged
+			List<IBean> liEntries = cache.getEntries(config, tmap);
+			
+			for (int i = 0; i < liEntries.size(); i++)
+			{
+				Assert.assertNull(liEntries.get(i).get("index"));
+			}
+		}
+		finally
+		{
+			FileUtil.delete(fiRoot);
+		}
+	}
+	
+	/**
+	 * Tests that created icons change the version and the entries.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	public void testIconChanges() throws Exception
+	{
+		File fiRoot = new File(new File(System.getProperty("java.io.tmpdir")), "testEntryCacheIcons" + System.currentTimeMillis());
+		
+		File fiStructure = new File(fiRoot, "structure");
+		
+		File fiFolder = new File(fiStructure, "01_Folder");
+		fiFolder.mkdirs();
+		
+		createFile(new File(fiFolder, "01_First.html"));
+		
+		File fiIcons = new File(fiRoot, "images/tree");
+		fiIcons.mkdirs();
+		
+		try
+		{
+			Config config = new Config(fiRoot.getCanonicalFile(), fiStructure.getCanonicalFile(), "");
+			
+			TranslationMap tmap = new TranslationMap();
+			
+			EntryCache cache = EntryCache.getInstance(config, "test");
+			
+			long lVersion = cache.getVersion();
+			
+			Assert.assertNull(cache.getEntries(config, tmap).get(1).get("icon"));
+			
+			createFile(new File(fiIcons, "folder.png"));
+			createFile(new File(fiIcons, "Html.png"));
+			
+			long lStart = System.currentTimeMillis();
+			
+			//the icon directory will be checked every 2 seconds
+			while (cache.getVersion() == lVersion && lStart + 10000 > System.currentTimeMillis())
+			{
+				Thread.sleep(100);
+			}
+			
+			Assert.assertTrue(cache.getVersion() != lVersion);
+			
+			List<IBean> liEntries = cache.getEntries(config, tmap);
+			
+			Assert.assertEquals("Folder", liEntries.get(1).get("name"));
+			Assert.assertEquals("/images/tree/folder.png", liEntries.get(1).get("icon"));
+			
+			if (new File(fiIcons, "html.png").exists())
+			{
+				//case insensitive file system
+				Assert.assertEquals("/images/tree/html.png", liEntries.get(2).get("icon"));
+			}
+			else
+			{
+				//only lower case icon names, like a file check
+				Assert.assertNull(liEntries.get(2).get("icon"));
+			}
+		}
+		finally
+		{
+			FileUtil.delete(fiRoot);
+		}
+	}
+	
+	/**
+	 * Creates a HTML file.
+	 * 
+	 * @param pFile the file
+	 * @throws Exception if creating fails
+	 */
+	private void createFile(File pFile) throws Exception
+	{
+		FileOutputStream fos = new FileOutputStream(pFile);
+		
+		try
+		{
+			fos.write("<html>page</html>".getBytes("UTF-8"));
+		}
+		finally
+		{
+			fos.close();
+		}
+	}
+	
+}	// TestEntryCache
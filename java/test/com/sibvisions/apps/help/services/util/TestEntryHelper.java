@@ -0,0 +1,107 @@
+/*
+ * Copyright 2022 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.sibvisions.apps.help.services.util;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+
+import jvx.rad.type.bean.IBean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sibvisions.util.type.FileUtil;
+
+/**
+ * The <code>TestEntryHelper</code> class is the test class for {@link EntryHelper}.
+ * 
+ * @author Ren Jahn
+ */
+public class TestEntryHelper 
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Tests
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Tests that folder IDs don't change if another folder was added.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	public void testStableIDs() throws Exception
+	{
+		File fiRoot = new File(new File(System.getProperty("java.io.tmpdir")), "testEntryHelper");
+		
+		FileUtil.delete(fiRoot);
+		
+		File fiStructure = new File(fiRoot, "structure");
+		
+		new File(fiStructure, "02_Second/01_Sub").mkdirs();
+		new File(fiStructure, "03_Third").mkdirs();
+		
+		try
+		{
+			Config config = new Config(fiRoot.getCanonicalFile(), fiStructure.getCanonicalFile(), "");
+			
+			HashMap<String, Object> hmpIDs = getIDs(new EntryHelper(config).search());
+			
+			Assert.assertNull(hmpIDs.get("First"));
+			Assert.assertEquals(hmpIDs.get("Second"), hmpIDs.get("Sub/parent"));
+			
+			//new folder before the others
+			new File(fiStructure, "01_First").mkdirs();
+			
+			HashMap<String, Object> hmpNewIDs = getIDs(new EntryHelper(config).search());
+			
+			Assert.assertNotNull(hmpNewIDs.get("First"));
+			
+			Assert.assertEquals(hmpIDs.get("Second"), hmpNewIDs.get("Second"));
+			Assert.assertEquals(hmpIDs.get("Sub"), hmpNewIDs.get("Sub"));
+			Assert.assertEquals(hmpIDs.get("Third"), hmpNewIDs.get("Third"));
+			
+			Assert.assertEquals(EntryHelper.createID("01_First"), ((Long)hmpNewIDs.get("First")).longValue());
+		}
+		finally
+		{
+			FileUtil.delete(fiRoot);
+		}
+	}
+	
+	/**
+	 * Gets the IDs of all folders by name. The parent ID of a folder is available as <code>name/parent</code>.
+	 * 
+	 * @param pEntries the entries
+	 * @return the IDs
+	 */
+	private HashMap<String, Object> getIDs(List<IBean> pEntries)
+	{
+		HashMap<String, Object> hmpIDs = new HashMap<String, Object>();
+		
+		for (IBean bean : pEntries)
+		{
+			if ("folder".equals(bean.get("type")))
+			{
+				hmpIDs.put((String)bean.get("name"), bean.get("id"));
+				hmpIDs.put(bean.get("name") + "/parent", bean.get("parentID"));
+			}
+		}
+		
+		return hmpIDs;
+	}
+	
+}	// TestEntryHelper
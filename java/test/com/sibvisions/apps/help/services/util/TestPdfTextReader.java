@@ -0,0 +1,196 @@
+/*
+ * Copyright 2022 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.sibvisions.apps.help.services.util;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * The <code>TestPdfTextReader</code> class is the test class for {@link PdfTextReader}.
+ * 
+ * @author Ren Jahn
+ */
+public class TestPdfTextReader 
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Tests
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Tests that the text of all page ranges will be read.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	public void testRead() throws Exception
+	{
+		PDDocument document = createDocument(25);
+		
+		try
+		{
+			PdfTextReader reader = new PdfTextReader(document, 10, Integer.MAX_VALUE, 60000);
+			
+			String sText = reader.readText(Integer.MAX_VALUE);
+			
+			for (int i = 1; i <= 25; i++)
+			{
+				Assert.assertTrue(sText.contains("page" + i + " "));
+			}
+			
+			Assert.assertTrue(reader.isFinished());
+			Assert.assertFalse(reader.isTruncated());
+			Assert.assertEquals(-1, reader.read());
+		}
+		finally
+		{
+			document.close();
+		}
+	}
+	
+	/**
+	 * Tests that reading stops after the max number of characters.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	public void testMaxChars() throws Exception
+	{
+		PDDocument document = createDocument(25);
+		
+		try
+		{
+			PdfTextReader reader = new PdfTextReader(document, 1, 100, 60000);
+			
+			String sText = reader.readText(Integer.MAX_VALUE);
+			
+			Assert.assertEquals(100, sText.length());
+			Assert.assertTrue(sText.startsWith("page1 "));
+			Assert.assertFalse(reader.isFinished());
+			Assert.assertTrue(reader.isTruncated());
+			
+			//the beginning only
+			reader = new PdfTextReader(document, 1, Integer.MAX_VALUE, 60000);
+			
+			Assert.assertEquals(50, reader.readText(50).length());
+			Assert.assertFalse(reader.isFinished());
+			Assert.assertFalse(reader.isTruncated());
+		}
+		finally
+		{
+			document.close();
+		}
+	}
+	
+	/**
+	 * Tests that no page will be read after the time limit.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	public void testMaxTime() throws Exception
+	{
+		PDDocument document = createDocument(5);
+		
+		try
+		{
+			PdfTextReader reader = new PdfTextReader(document, 1, Integer.MAX_VALUE, -1);
+			
+			Assert.assertEquals("", reader.readText(Integer.MAX_VALUE));
+			Assert.assertTrue(reader.isTruncated());
+		}
+		finally
+		{
+			document.close();
+		}
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a document with the given number of pages. Every page starts with "page" and the number.
+	 * 
+	 * @param pPages the number of pages
+	 * @return the document
+	 * @throws IOException if creating the document fails
+	 */
+	static PDDocument createDocument(int pPages) throws IOException
+	{
+		PDDocument document = new PDDocument();
+		
+		for (int i = 1; i <= pPages; i++)
+		{
+			PDPage page = new PDPage();
+			
+			document.addPage(page);
+			
+			PDPageContentStream stream = new PDPageContentStream(document, page);
+			
+			try
+			{
+				stream.beginText();
+				stream.setFont(PDType1Font.HELVETICA, 10);
+				stream.setLeading(12);
+				stream.newLineAtOffset(50, 740);
+				
+				for (int j = 0; j < 40; j++)
+				{
+					stream.showText("page" + i + " line" + j + " shows the configuration of the application and all settings");
+					stream.newLine();
+				}
+				
+				stream.endText();
+			}
+			finally
+			{
+				stream.close();
+			}
+		}
+		
+		return document;
+	}
+	
+	/**
+	 * Writes a document with the given number of pages.
+	 * 
+	 * @param pFile the file
+	 * @param pPages the number of pages
+	 * @throws IOException if writing the document fails
+	 * @see #createDocument(int)
+	 */
+	static void writeDocument(File pFile, int pPages) throws IOException
+	{
+		PDDocument document = createDocument(pPages);
+		
+		try
+		{
+			document.save(pFile);
+		}
+		finally
+		{
+			document.close();
+		}
+	}
+	
+}	// TestPdfTextReader
@@ -0,0 +1,771 @@
+/*
+ * Copyright 2022 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.sibvisions.apps.help.services.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import jvx.rad.type.bean.IBean;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sibvisions.util.type.FileUtil;
+
+/**
+ * The <code>TestSearcher</code> class is the test class for {@link Searcher}.
+ * 
+ * @author Ren Jahn
+ */
+public class TestSearcher 
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the root directory of the test. */
+	private File fiRoot;
+	
+	/** the help structure directory. */
+	private File fiStructure;
+	
+	/** the configuration. */
+	private Config config;
+	
+	/** the created searchers. */
+	private List<Searcher> liSearcher = new ArrayList<Searcher>();
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates an empty help structure.
+	 */
+	@Before
+	public void setUp()
+	{
+		fiRoot = new File(new File(System.getProperty("java.io.tmpdir")), "testSearcher" + System.nanoTime());
+		
+		fiStructure = new File(fiRoot, "structure");
+		fiStructure.mkdirs();
+		
+		config = new Config(fiRoot, fiStructure, "/");
+	}
+	
+	/**
+	 * Deletes the indexes of all created searchers and the help structure.
+	 * 
+	 * @throws Exception if waiting for an index creation fails
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		for (Searcher searcher : liSearcher)
+		{
+			waitFor(searcher);
+			
+			searcher.deleteIndex();
+		}
+		
+		FileUtil.delete(fiRoot);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Tests
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Tests that concurrent requests for a new application key share one searcher and 
+	 * start only one index creation.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	public void testConcurrentGetInstance() throws Exception
+	{
+		writePages(10);
+		
+		final String sKey = "testSearcher" + System.nanoTime();
+		
+		int iThreads = 32;
+		
+		final Searcher[] searcher = new Searcher[iThreads];
+		
+		final CountDownLatch cdlStart = new CountDownLatch(1);
+		
+		Thread[] th = new Thread[iThreads];
+		
+		for (int i = 0; i < iThreads; i++)
+		{
+			final int iThread = i;
+			
+			th[i] = new Thread(new Runnable()
+			{
+				public void run()
+				{
+					try
+					{
+						cdlStart.await();
+						
+						searcher[iThread] = Searcher.getInstance(sKey, config);
+					}
+					catch (InterruptedException ie)
+					{
+						//searcher is null -> test fails
+					}
+				}
+			});
+			th[i].start();
+		}
+		
+		//all threads request at the same time
+		cdlStart.countDown();
+		
+		for (int i = 0; i < iThreads; i++)
+		{
+			th[i].join();
+		}
+		
+		liSearcher.add(searcher[0]);
+		
+		for (int i = 0; i < iThreads; i++)
+		{
+			Assert.assertTrue(searcher[0] == searcher[i]);
+		}
+		
+		Assert.assertEquals(1, searcher[0].getIndexCreationCount());
+		
+		waitFor(searcher[0]);
+		
+		Assert.assertEquals(10, searcher[0].searchIndex("shows", 100).size());
+		Assert.assertEquals(1, searcher[0].getIndexCreationCount());
+	}
+	
+	/**
+	 * Tests that a failed background initialization doesn't throw an exception and that the next
+	 * request initializes the searcher again.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	public void testStartInstanceFailed() throws Exception
+	{
+		writePages(1);
+		
+		String sKey = "testSearcher" + System.nanoTime();
+		
+		//the index home can't be created
+		File fiIndexHome = new File(fiRoot, "index");
+		
+		FileOutputStream fos = new FileOutputStream(fiIndexHome);
+		fos.close();
+		
+		Searcher.startInstance(sKey, config, fiIndexHome);
+		
+		try
+		{
+			Searcher.getInstance(sKey, config, fiIndexHome);
+			
+			Assert.fail("Index home shouldn't be available");
+		}
+		catch (RuntimeException re)
+		{
+			//expected
+		}
+		
+		fiIndexHome.delete();
+		
+		Searcher searcher = Searcher.getInstance(sKey, config, fiIndexHome);
+		
+		liSearcher.add(searcher);
+		
+		Assert.assertEquals(1, waitForHits(searcher, "shows", 1).size());
+	}
+	
+	/**
+	 * Tests that pages found with offset and with the position of the previous page contain 
+	 * different entries and the number of all hits.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	public void testPaging() throws Exception
+	{
+		writePages(10);
+		
+		Searcher searcher = createSearcher();
+		
+		HashSet<Object> hsUrls = new HashSet<Object>();
+		
+		SearchResult result = searcher.searchEntries("shows", 0, 4, null);
+		
+		Assert.assertEquals(10, result.getTotalHits());
+		Assert.assertEquals(4, result.getEntries().size());
+		Assert.assertNotNull(result.getNext());
+		
+		for (IBean bean : result.getEntries())
+		{
+			hsUrls.add(bean.get("url"));
+		}
+		
+		//next page with position
+		result = searcher.searchEntries("shows", 4, 4, result.getNext());
+		
+		Assert.assertEquals(10, result.getTotalHits());
+		Assert.assertEquals(4, result.getEntries().size());
+		
+		for (IBean bean : result.getEntries())
+		{
+			hsUrls.add(bean.get("url"));
+		}
+		
+		//last page with offset
+		result = searcher.searchEntries("shows", 8, 4, null);
+		
+		Assert.assertEquals(10, result.getTotalHits());
+		Assert.assertEquals(2, result.getEntries().size());
+		Assert.assertNull(result.getNext());
+		
+		for (IBean bean : result.getEntries())
+		{
+			hsUrls.add(bean.get("url"));
+		}
+		
+		Assert.assertEquals(10, hsUrls.size());
+	}
+	
+	/**
+	 * Tests paging only with the position of the previous page and that invalid or outdated
+	 * positions will be rejected.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	public void testPagingAfter() throws Exception
+	{
+		writePages(10);
+		
+		Searcher searcher = createSearcher();
+		
+		HashSet<Object> hsUrls = new HashSet<Object>();
+		
+		SearchResult result = searcher.searchEntries("shows", 0, 4, null);
+		
+		for (int i = 1; i <= 2; i++)
+		{
+			for (IBean bean : result.getEntries())
+			{
+				hsUrls.add(bean.get("url"));
+			}
+			
+			searcher.checkPosition(result.getNext());
+			
+			result = searcher.searchEntries("shows", 0, 4, result.getNext());
+			
+			Assert.assertEquals(10, result.getTotalHits());
+			Assert.assertEquals(i * 4, result.getOffset());
+		}
+		
+		//last page
+		Assert.assertEquals(2, result.getEntries().size());
+		Assert.assertNull(result.getNext());
+		
+		for (IBean bean : result.getEntries())
+		{
+			hsUrls.add(bean.get("url"));
+		}
+		
+		Assert.assertEquals(10, hsUrls.size());
+		
+		String sNext = searcher.searchEntries("shows", 0, 4, null).getNext();
+		
+		try
+		{
+			searcher.searchEntries("shows", 0, 4, "invalid");
+			
+			Assert.fail("Invalid position");
+		}
+		catch (IllegalArgumentException iae)
+		{
+			//expected
+		}
+		
+		//other index version
+		String sOutdated = (searcher.getIndexVersion() - 1) + sNext.substring(sNext.indexOf('_'));
+		
+		try
+		{
+			searcher.checkPosition(sOutdated);
+			
+			Assert.fail("Outdated position");
+		}
+		catch (IllegalArgumentException iae)
+		{
+			//expected
+		}
+		
+		try
+		{
+			searcher.searchEntries("shows", 0, 4, sOutdated);
+			
+			Assert.fail("Outdated position");
+		}
+		catch (IllegalArgumentException iae)
+		{
+			//expected
+		}
+	}
+	
+	/**
+	 * Tests that found entries contain a snippet with the highlighted words and without markup.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	public void testSnippet() throws Exception
+	{
+		writeFile("page.html", "<html><body><p>The <i>configuration</i> shows all user's settings &amp; options.</p></body></html>");
+		
+		Searcher searcher = createSearcher();
+		
+		SearchResult result = searcher.searchEntries("fig", 0, 10, null);
+		
+		Assert.assertEquals(1, result.getEntries().size());
+		Assert.assertEquals("The <b>configuration</b> shows all user&#39;s settings &amp; options.", result.getEntries().get(0).get("snippet"));
+		
+		//markup is not indexed
+		Assert.assertEquals(0, searcher.searchEntries("body", 0, 10, null).getTotalHits());
+		
+		searcher.setFragmentCount(0);
+		
+		Assert.assertNull(searcher.searchEntries("fig", 0, 10, null).getEntries().get(0).get("snippet"));
+	}
+	
+	/**
+	 * Tests that found entries use the current icons, without indexing the files again.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	public void testIconChanges() throws Exception
+	{
+		writePages(1);
+		
+		Searcher searcher = createSearcher();
+		
+		Assert.assertNull(searcher.searchEntries("shows", 0, 10, null).getEntries().get(0).get("icon"));
+		
+		File fiIcons = new File(fiRoot, "images/tree");
+		fiIcons.mkdirs();
+		
+		FileOutputStream fos = new FileOutputStream(new File(fiIcons, "html.png"));
+		fos.close();
+		
+		long lStart = System.currentTimeMillis();
+		
+		//the icon directory will be checked every 2 seconds, the cached result mustn't be used
+		while (searcher.searchEntries("shows", 0, 10, null).getEntries().get(0).get("icon") == null
+			   && lStart + 10000 > System.currentTimeMillis())
+		{
+			Thread.sleep(100);
+		}
+		
+		Assert.assertEquals("/images/tree/html.png", searcher.searchEntries("shows", 0, 10, null).getEntries().get(0).get("icon"));
+		Assert.assertEquals(1, searcher.getIndexCreationCount());
+	}
+	
+	/**
+	 * Tests that repeated searches use the cached result and that the cached result can't be changed
+	 * by the caller.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	public void testResultCache() throws Exception
+	{
+		writeFile("page.html", "<html>shows the password settings</html>");
+		
+		Searcher searcher = createSearcher();
+		
+		SearchResult result = searcher.searchEntries("Password", 0, 10, null);
+		
+		Assert.assertEquals(1, result.getEntries().size());
+		Assert.assertEquals(0, searcher.getCacheHitCount());
+		Assert.assertEquals(1, searcher.getCacheMissCount());
+		
+		//e.g. translation
+		result.getEntries().get(0).put("name", "changed");
+		
+		//same normalized words
+		result = searcher.searchEntries(" password ", 0, 10, null);
+		
+		Assert.assertEquals(1, result.getEntries().size());
+		Assert.assertEquals("page", result.getEntries().get(0).get("name"));
+		Assert.assertEquals(1, searcher.getCacheHitCount());
+		Assert.assertEquals(1, searcher.getCacheMissCount());
+		
+		//other page
+		searcher.searchEntries("password", 1, 10, null);
+		
+		Assert.assertEquals(2, searcher.getCacheMissCount());
+	}
+	
+	/**
+	 * Tests that changed, added and deleted files will be detected and updated in the index.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	public void testUpdate() throws Exception
+	{
+		writePages(3);
+		
+		Searcher searcher = createSearcher();
+		
+		Assert.assertEquals(3, searcher.searchIndex("shows", 100).size());
+		
+		//changed in place
+		writeFile("page0.html", "<html>shows edited page</html>");
+		
+		new File(fiStructure, "page0.html").setLastModified(System.currentTimeMillis() + 2000);
+		
+		Assert.assertEquals(1, waitForHits(searcher, "edited", 1).size());
+		Assert.assertEquals(3, searcher.searchIndex("shows", 100).size());
+		
+		//added and deleted
+		writeFile("page3.html", "<html>shows added page</html>");
+		
+		File fiDeleted = new File(fiStructure, "page1.html");
+		fiDeleted.delete();
+		
+		Assert.assertEquals(1, waitForHits(searcher, "added", 1).size());
+		
+		waitFor(searcher);
+		
+		List<String> liFound = searcher.searchIndex("shows", 100);
+		
+		Assert.assertEquals(3, liFound.size());
+		Assert.assertFalse(liFound.contains(fiDeleted.getPath()));
+		Assert.assertEquals(1, searcher.searchIndex("edited", 100).size());
+	}
+	
+	/**
+	 * Tests that an index in the index home will be reused by a new searcher without indexing, 
+	 * as long as the files weren't changed.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	public void testReuseIndex() throws Exception
+	{
+		writePages(10);
+		
+		File fiHome = new File(fiRoot, "index");
+		
+		String sKey = Searcher.createKey(config);
+		
+		Assert.assertEquals(sKey, Searcher.createKey(new Config(fiRoot, fiStructure, "/")));
+		
+		Searcher searcher = createSearcher(sKey, fiHome);
+		
+		Assert.assertEquals(10, searcher.getProcessedFileCount());
+		Assert.assertEquals(new File(fiHome, sKey), searcher.getIndexDirectory());
+		Assert.assertTrue(new File(searcher.getIndexDirectory(), "index.manifest").exists());
+		
+		//e.g. restart
+		Searcher searcherReused = createSearcher(sKey, fiHome);
+		
+		Assert.assertEquals(0, searcherReused.getProcessedFileCount());
+		Assert.assertEquals(10, searcherReused.searchIndex("shows", 100).size());
+		
+		//changed file -> only the changed file will be indexed
+		writeFile("page0.html", "<html>shows changed page</html>");
+		
+		new File(fiStructure, "page0.html").setLastModified(System.currentTimeMillis() + 2000);
+		
+		searcherReused = createSearcher(sKey, fiHome);
+		
+		Assert.assertEquals(10, searcherReused.getProcessedFileCount());
+		Assert.assertEquals(1, searcherReused.getIndexedFileCount());
+		Assert.assertEquals(1, searcherReused.searchIndex("changed", 100).size());
+		Assert.assertEquals(10, searcherReused.searchIndex("shows", 100).size());
+		
+		//index without manifest won't be opened before it was checked
+		Assert.assertTrue(new File(searcherReused.getIndexDirectory(), "index.manifest").delete());
+		
+		Searcher searcherChecked = new Searcher(sKey);
+		searcherChecked.setConfig(config);
+		searcherChecked.setIndexHome(fiHome);
+		
+		liSearcher.add(searcherChecked);
+		
+		searcherChecked.initialize();
+		
+		waitFor(searcherChecked);
+		
+		Assert.assertEquals(0, searcherChecked.getIndexedFileCount());
+		Assert.assertEquals(10, searcherChecked.getProcessedFileCount());
+		Assert.assertTrue(new File(searcherChecked.getIndexDirectory(), "index.manifest").exists());
+	}
+	
+	/**
+	 * Tests that an index with failed files will be reused after a restart and only the failed 
+	 * files will be indexed again. Unchanged failed files won't be indexed again by an update.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	public void testReuseIndexFailed() throws Exception
+	{
+		writePages(2);
+		writeFile("broken.pdf", "no pdf");
+		
+		File fiHome = new File(fiRoot, "index");
+		
+		String sKey = Searcher.createKey(config);
+		
+		Searcher searcher = createSearcher(sKey, fiHome);
+		
+		Assert.assertEquals(2, searcher.getIndexedFileCount());
+		Assert.assertEquals(1, searcher.getFailedFileCount());
+		Assert.assertTrue(new File(searcher.getIndexDirectory(), "index.manifest").exists());
+		
+		//no change -> the broken file won't be tried again
+		writeFile("page2.html", "<html>shows page 2</html>");
+		
+		searcher.update();
+		
+		waitFor(searcher);
+		
+		Assert.assertEquals(1, searcher.getIndexedFileCount());
+		Assert.assertEquals(1, searcher.getFailedFileCount());
+		Assert.assertEquals(3, searcher.searchIndex("shows", 100).size());
+		
+		//e.g. restart
+		Searcher searcherRestarted = new Searcher(sKey);
+		searcherRestarted.setConfig(config);
+		searcherRestarted.setIndexHome(fiHome);
+		
+		liSearcher.add(searcherRestarted);
+		
+		searcherRestarted.initialize();
+		
+		//the index is available immediately
+		Assert.assertTrue(searcherRestarted.isIndexAvailable());
+		
+		waitFor(searcherRestarted);
+		
+		//only the broken file was tried again
+		Assert.assertEquals(0, searcherRestarted.getIndexedFileCount());
+		Assert.assertEquals(1, searcherRestarted.getFailedFileCount());
+		Assert.assertEquals(4, searcherRestarted.getProcessedFileCount());
+		Assert.assertEquals(3, searcherRestarted.searchIndex("shows", 100).size());
+	}
+	
+	/**
+	 * Tests that the text of a large PDF document will be indexed completely, but only the
+	 * beginning will be stored for snippets.
+	 * 
+	 * @throws Exception if test fails
+	 */
+	@Test
+	public void testLargePdf() throws Exception
+	{
+		//~3500 characters per page
+		TestPdfTextReader.writeDocument(new File(fiStructure, "manual.pdf"), 120);
+		TestPdfTextReader.writeDocument(new File(fiStructure, "small.pdf"), 2);
+		
+		int iSpoolFiles = countSpoolFiles();
+		
+		Searcher searcher = createSearcher();
+		
+		Assert.assertEquals(2, searcher.getIndexedFileCount());
+		
+		//the extracted text was deleted
+		Assert.assertEquals(iSpoolFiles, countSpoolFiles());
+		
+		//first and last page
+		Assert.assertEquals(2, searcher.searchEntries("page1", 0, 10, null).getTotalHits());
+		Assert.assertEquals(1, searcher.searchEntries("page120", 0, 10, null).getTotalHits());
+		
+		//infix
+		Assert.assertEquals(1, searcher.searchEntries("ge119", 0, 10, null).getTotalHits());
+		
+		SearchResult result = searcher.searchEntries("page2", 0, 10, null);
+		
+		Assert.assertEquals(2, result.getEntries().size());
+		Assert.assertNotNull(result.getEntries().get(0).get("snippet"));
+		
+		//not stored -> no snippet
+		Assert.assertNull(searcher.searchEntries("page120", 0, 10, null).getEntries().get(0).get("snippet"));
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a searcher for the help structure with a new application key and waits until
+	 * the index was created.
+	 * 
+	 * @return the searcher
+	 * @throws Exception if waiting for the index creation fails
+	 */
+	private Searcher createSearcher() throws Exception
+	{
+		Searcher searcher = Searcher.getInstance("testSearcher" + System.nanoTime(), config);
+		
+		liSearcher.add(searcher);
+		
+		waitFor(searcher);
+		
+		return searcher;
+	}
+	
+	/**
+	 * Creates a new searcher for the help structure with an index in the given index home and 
+	 * waits until the index was created. The searcher won't be shared.
+	 * 
+	 * @param pKey the application key
+	 * @param pIndexHome the index home
+	 * @return the searcher
+	 * @throws Exception if initialization fails
+	 */
+	private Searcher createSearcher(String pKey, File pIndexHome) throws Exception
+	{
+		Searcher searcher = new Searcher(pKey);
+		searcher.setConfig(config);
+		searcher.setIndexHome(pIndexHome);
+		
+		liSearcher.add(searcher);
+		
+		searcher.initialize();
+		
+		waitFor(searcher);
+		
+		return searcher;
+	}
+	
+	/**
+	 * Writes HTML pages with the text "shows page" and the number of the page.
+	 * 
+	 * @param pCount the number of pages
+	 * @throws IOException if writing fails
+	 */
+	private void writePages(int pCount) throws IOException
+	{
+		for (int i = 0; i < pCount; i++)
+		{
+			writeFile("page" + i + ".html", "<html>shows page " + i + "</html>");
+		}
+	}
+	
+	/**
+	 * Writes a file to the help structure.
+	 * 
+	 * @param pName the file name
+	 * @param pContent the content
+	 * @throws IOException if writing fails
+	 */
+	private void writeFile(String pName, String pContent) throws IOException
+	{
+		FileOutputStream fos = new FileOutputStream(new File(fiStructure, pName));
+		
+		try
+		{
+			fos.write(pContent.getBytes("UTF-8"));
+		}
+		finally
+		{
+			fos.close();
+		}
+	}
+	
+	/**
+	 * Searches until the expected number of files was found. Every search checks for changed files 
+	 * and starts the index update, if necessary.
+	 * 
+	 * @param pSearcher the searcher
+	 * @param pSearch the search text
+	 * @param pExpected the expected number of files
+	 * @return the found files
+	 * @throws Exception if search fails
+	 */
+	private static List<String> waitForHits(Searcher pSearcher, String pSearch, int pExpected) throws Exception
+	{
+		long lStart = System.currentTimeMillis();
+		
+		List<String> liFound = pSearcher.searchIndex(pSearch, 100);
+		
+		while (liFound.size() != pExpected && lStart + 30000 > System.currentTimeMillis())
+		{
+			Thread.sleep(50);
+			
+			waitFor(pSearcher);
+			
+			liFound = pSearcher.searchIndex(pSearch, 100);
+		}
+		
+		return liFound;
+	}
+	
+	/**
+	 * Counts the spool files of extracted PDF texts in the temp directory.
+	 * 
+	 * @return the number of spool files
+	 */
+	private static int countSpoolFiles()
+	{
+		String[] sFiles = new File(System.getProperty("java.io.tmpdir")).list();
+		
+		int iCount = 0;
+		
+		for (int i = 0; sFiles != null && i < sFiles.length; i++)
+		{
+			if (sFiles[i].startsWith("searcher") && sFiles[i].endsWith(".txt"))
+			{
+				iCount++;
+			}
+		}
+		
+		return iCount;
+	}
+	
+	/**
+	 * Waits until the index creation of the given searcher is finished.
+	 * 
+	 * @param pSearcher the searcher
+	 * @throws InterruptedException if waiting was interrupted
+	 */
+	private static void waitFor(Searcher pSearcher) throws InterruptedException
+	{
+		long lStart = System.currentTimeMillis();
+		
+		while (!pSearcher.isIndexCreated() && lStart + 30000 > System.currentTimeMillis())
+		{
+			Thread.sleep(50);
+		}
+	}
+	
+}	// TestSearcher
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2022 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.sibvisions.apps.help.services.util;
+
+/**
+ * The <code>URLEncoderBenchmark</code> compares the former URL encoding of help entries, with
+ * <code>String.split</code>, <code>getBytes</code> and <code>Integer.toHexString</code>, with the
+ * table based encoding of {@link EntryHelper}, including cached parent paths.
+ * <p>
+ * Usage: <code>URLEncoderBenchmark [iterations]</code>
+ * 
+ * @author Ren Jahn
+ */
+public final class URLEncoderBenchmark
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the parent path of all names. */
+	private static final String PARENT = "multihelp/help_de/structure/01_General/02_Userinterface";
+	
+	/** the encoded names. */
+	private static final String[] NAMES = new String[] {"01_\u00df \u00e4lapal\u00f6ma & html.html", 
+			                                            "02_\u00df\u00df.html",
+			                                            "Spaces 1 2 3.html",
+			                                            "TK Standorte$apps.rfid.workscreen.stamm.TKStandorte.html",
+			                                            "03_\u20ac Preise \ud83d\ude00.pdf"};
+	
+	/** the result, avoids dead code elimination. */
+	private static int iResult;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Invisible constructor because <code>URLEncoderBenchmark</code> is a utility class.
+	 */
+	private URLEncoderBenchmark()
+	{
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Starts the benchmark.
+	 * 
+	 * @param pArgs the number of iterations
+	 * @throws Exception if the benchmark fails
+	 */
+	public static void main(String[] pArgs) throws Exception
+	{
+		int iIterations = pArgs.length > 0 ? Integer.parseInt(pArgs[0]) : 1000000;
+		
+		StringBuilder sbPrefix = new StringBuilder();
+		
+		for (String sPart : PARENT.split("/"))
+		{
+			sbPrefix.append('/');
+			
+			EntryHelper.appendEncoded(sbPrefix, sPart);
+		}
+		
+		String sPrefix = sbPrefix.toString();
+		
+		//both encodings have to create the same URLs
+		for (int i = 0; i < NAMES.length; i++)
+		{
+			String sLegacy = encodeLegacy(PARENT + "/" + NAMES[i]);
+			String sTable = encodeTable(sPrefix, NAMES[i]);
+			
+			if (!sLegacy.equals(sTable))
+			{
+				throw new IllegalStateException(sLegacy + " != " + sTable);
+			}
+			
+			System.out.println(sTable);
+		}
+		
+		System.out.println();
+		System.out.println(String.format("%-10s %14s", "encoding", "time (ns/url)"));
+
+		for (int i = 0; i < 3; i++)
+		{
+			System.out.println(String.format("%-10s %14d", "legacy", Long.valueOf(measure(null, iIterations))));
+			System.out.println(String.format("%-10s %14d", "table", Long.valueOf(measure(sPrefix, iIterations))));
+		}
+	}
+	
+	/**
+	 * Measures the average encoding time.
+	 * 
+	 * @param pPrefix the encoded parent path or <code>null</code> for the legacy encoding
+	 * @param pIterations the number of iterations
+	 * @return the average time in nanoseconds per URL
+	 * @throws Exception if encoding fails
+	 */
+	private static long measure(String pPrefix, int pIterations) throws Exception
+	{
+		int iLength = 0;
+		
+		//warm-up
+		for (int i = 0; i < pIterations / 10; i++)
+		{
+			iLength += encode(pPrefix, NAMES[i % NAMES.length]).length();
+		}
+		
+		long lStart = System.nanoTime();
+		
+		for (int i = 0; i < pIterations; i++)
+		{
+			iLength += encode(pPrefix, NAMES[i % NAMES.length]).length();
+		}
+		
+		long lTime = (System.nanoTime() - lStart) / pIterations;
+		
+		iResult += iLength;
+		
+		return lTime;
+	}
+	
+	/**
+	 * Encodes the URL of a file name.
+	 * 
+	 * @param pPrefix the encoded parent path or <code>null</code> for the legacy encoding
+	 * @param pName the file name
+	 * @return the URL
+	 * @throws Exception if encoding fails
+	 */
+	private static String encode(String pPrefix, String pName) throws Exception
+	{
+		if (pPrefix == null)
+		{
+			return encodeLegacy(PARENT + "/" + pName);
+		}
+		else
+		{
+			return encodeTable(pPrefix, pName);
+		}
+	}
+	
+	/**
+	 * Encodes the URL with the cached parent path and the escape table.
+	 * 
+	 * @param pPrefix the encoded parent path
+	 * @param pName the file name
+	 * @return the URL
+	 */
+	private static String encodeTable(String pPrefix, String pName)
+	{
+		StringBuilder sb = new StringBuilder(pPrefix.length() + pName.length() * 3 + 1);
+		sb.append(pPrefix);
+		sb.append('/');
+		
+		EntryHelper.appendEncoded(sb, pName);
+		
+		return sb.toString();
+	}
+	
+	/**
+	 * Encodes the URL like the former implementation of the {@link EntryHelper}.
+	 * 
+	 * @param pRelativePath the relative path
+	 * @return the URL
+	 * @throws Exception if encoding fails
+	 */
+	private static String encodeLegacy(String pRelativePath) throws Exception
+	{
+		StringBuilder sb = new StringBuilder();
+		
+		for (String sPath : pRelativePath.split("/"))
+		{
+			sb.append("/");
+			
+			StringBuffer sbfUrl = new StringBuffer();
+			
+			int iChar;
+			
+			byte[] by = sPath.getBytes("UTF8");
+			
+			for (int i = 0, anz = by.length; i < anz; i++)
+			{
+				iChar = by[i];
+				
+				if ((iChar >= 'a' && iChar <= 'z')
+					|| (iChar >= 'A' && iChar <= 'Z')
+					|| (iChar >= '0' && iChar <= '9')
+					|| "$-_.!'(),/".indexOf(iChar) >= 0)
+				{
+					sbfUrl.append((char)iChar);
+				}
+				else
+				{
+					sbfUrl.append('%');
+					sbfUrl.append(String.valueOf(Integer.toHexString(((iChar & 0xff) + 256))).substring(1));
+				}
+			}
+			
+			sb.append(sbfUrl);
+		}
+		
+		return sb.toString();
+	}
+	
+}	// URLEncoderBenchmark